@@ -0,0 +1,76 @@
+package sample;
+
+import points2d.Vec2dbd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The colors of a frame of the whole set with each
+ * ColorBuilder.WayToRender, with buildColor per pixel
+ * and with the palette of buildColors
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorBenchmark {
+
+    private static final int WIDTH = 512;
+
+    private static final int HEIGHT = 512;
+
+    private static final int ITERATIONS = 1000;
+
+    private static final float ADDED = 0.5f;
+
+    @Param({"SINE", "COSINE", "RESIDUAL", "COSINE_SQUARE", "SINE_SQUARE"})
+    public String way;
+
+    private ColorBuilder.WayToRender wayToRender;
+
+    private final int[] fractal = new int[WIDTH * HEIGHT];
+
+    private final int[] pixels = new int[WIDTH * HEIGHT];
+
+    private int[] palette;
+
+    @Setup
+    public void setUp() {
+        wayToRender = ColorBuilder.WayToRender.valueOf(way);
+        double pixelSize = 3.0 / WIDTH;
+        Vec2dbd fractalTopLeft = new Vec2dbd(-2.0, -1.5);
+        FractalMath.buildFractal(fractalTopLeft, pixelSize, WIDTH, HEIGHT, ITERATIONS, fractal, FractalMath.FractalMethod.FORK_JOIN).join();
+        palette = ColorBuilder.buildPalette(ITERATIONS, ADDED, wayToRender);
+    }
+
+    @Benchmark
+    public int[] buildColor(RenderCounters counters) {
+        for ( int i = 0; i < pixels.length; i++ ) {
+            pixels[i] = ColorBuilder.buildColor(fractal[i], ADDED, wayToRender);
+        }
+        counters.pixels += pixels.length;
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] buildColors(RenderCounters counters) {
+        ColorBuilder.buildColors(fractal, pixels, palette, ADDED, wayToRender);
+        counters.pixels += pixels.length;
+        return pixels;
+    }
+
+}
@@ -0,0 +1,177 @@
+package sample;
+
+import points2d.Vec2dbd;
+import points2d.Vec2dd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole frame with each method of FractalMath.FractalMethod,
+ * with the checks of the application as they are by default
+ *
+ * The frame is built with FractalMath.buildFractal and the
+ * benchmark waits for the last pixel, so the methods with
+ * threads are measured until the end and not until the
+ * call returns
+ *
+ * createFractalBasic doesn't depend on the method, so it is in
+ * Basic, with only the viewport and the iterations as params
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FractalMethodBenchmark {
+
+    private static final int WIDTH = 512;
+
+    private static final int HEIGHT = 512;
+
+    @Param({"NAIVE", "POOL_THREAD", "FORK_JOIN", "MARIANI_SILVER", "LANES", "LANES_FORK_JOIN", "PERTURBATION", "DOUBLE_DOUBLE", "TILED"})
+    public String method;
+
+    /**
+     * FULL is the whole set, SEAHORSE a part of the border and
+     * DEEP the seahorse valley with a zoom near the limit of
+     * the doubles
+     */
+    @Param({"FULL", "SEAHORSE", "DEEP"})
+    public String viewport;
+
+    @Param({"256", "4096"})
+    public int iterations;
+
+    private FractalMath.FractalMethod fractalMethod;
+
+    private Vec2dbd fractalTopLeft;
+
+    private double pixelSize;
+
+    private final int[] fractal = new int[WIDTH * HEIGHT];
+
+    @Setup
+    public void setUp() {
+        fractalMethod = FractalMath.FractalMethod.valueOf(method);
+        pixelSize = getPixelSize(viewport);
+        fractalTopLeft = getTopLeft(viewport);
+    }
+
+    /**
+     * The tiles of the last frame would be reused, so each
+     * frame of TILED starts with the cache empty
+     */
+    @Setup(Level.Invocation)
+    public void clearTiles() {
+        if ( fractalMethod == FractalMath.FractalMethod.TILED ) {
+            TileMath.getTileCache().clear();
+        }
+    }
+
+    @Benchmark
+    public int[] buildFractal(RenderCounters counters) {
+        FractalMath.buildFractal(fractalTopLeft, pixelSize, WIDTH, HEIGHT, iterations, fractal, fractalMethod).join();
+        counters.add(fractal, fractal.length);
+        return fractal;
+    }
+
+    /**
+     * The basic method without the future of buildFractal
+     */
+    @State(Scope.Thread)
+    public static class Basic {
+
+        @Param({"FULL", "SEAHORSE", "DEEP"})
+        public String viewport;
+
+        @Param({"256", "4096"})
+        public int iterations;
+
+        private Vec2dd fractalTopLeft;
+
+        private Vec2dd fractalBottomRight;
+
+        private final int[] fractal = new int[WIDTH * HEIGHT];
+
+        @Setup
+        public void setUp() {
+            double pixelSize = getPixelSize(viewport);
+            fractalTopLeft = getTopLeft(viewport).toVec2dd();
+            fractalBottomRight = new Vec2dd(fractalTopLeft.getX() + WIDTH * pixelSize, fractalTopLeft.getY() + HEIGHT * pixelSize);
+        }
+
+        @Benchmark
+        public int[] createFractalBasic(RenderCounters counters) {
+            FractalMath.createFractalBasic(
+                    new Vec2dd(0.0, 0.0),
+                    new Vec2dd(WIDTH, HEIGHT),
+                    fractalTopLeft,
+                    fractalBottomRight,
+                    iterations,
+                    fractal,
+                    WIDTH
+            );
+            counters.add(fractal, fractal.length);
+            return fractal;
+        }
+
+    }
+
+    /**
+     * @return the center x, center y and width of the viewport
+     */
+    private static double[] getViewport(String viewport) {
+        double centerX;
+        double centerY;
+        double width;
+        switch ( viewport ) {
+            case "FULL": default:
+                centerX = -0.5;
+                centerY = 0.0;
+                width = 3.0;
+                break;
+            case "SEAHORSE":
+                centerX = -0.745;
+                centerY = 0.113;
+                width = 0.01;
+                break;
+            case "DEEP":
+                centerX = -0.7436438870371587;
+                centerY = 0.1318259042053120;
+                width = 1e-11;
+                break;
+        }
+        return new double[] {centerX, centerY, width};
+    }
+
+    private static double getPixelSize(String viewport) {
+        return getViewport(viewport)[2] / WIDTH;
+    }
+
+    /**
+     * @return the world point of the pixel (0, 0)
+     */
+    private static Vec2dbd getTopLeft(String viewport) {
+        double[] view = getViewport(viewport);
+        double pixelSize = view[2] / WIDTH;
+        Vec2dbd topLeft = new Vec2dbd(view[0], view[1]);
+        topLeft.addToX(-WIDTH / 2.0 * pixelSize);
+        topLeft.addToY(-HEIGHT / 2.0 * pixelSize);
+        return topLeft;
+    }
+
+}
@@ -0,0 +1,73 @@
+package sample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The inner loop of the fractal (FractalMath.mathCal) for
+ * one point, with the checks of the application turned off
+ * so every iteration is done
+ *
+ * INTERIOR never escapes, EXTERIOR escapes in a few iterations
+ * and BOUNDARY is near the border of the set (the neck between
+ * the cardioid and the period-2 bulb), where it escapes after
+ * 3143 iterations
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+
+    @Param({"INTERIOR", "EXTERIOR", "BOUNDARY"})
+    public String point;
+
+    @Param({"100", "1000", "10000"})
+    public int iterations;
+
+    private double realC;
+
+    private double compC;
+
+    @Setup
+    public void setUp() {
+        FractalMath.setCardioidCheck(false);
+        FractalMath.setPeriodicityCheck(false);
+        switch ( point ) {
+            case "INTERIOR":
+                realC = -0.1;
+                compC = 0.1;
+                break;
+            case "EXTERIOR":
+                realC = 0.5;
+                compC = 0.5;
+                break;
+            case "BOUNDARY": default:
+                realC = -0.75;
+                compC = 0.001;
+                break;
+        }
+    }
+
+    @Benchmark
+    public int mathCal(RenderCounters counters) {
+        int n = FractalMath.mathCal(realC, compC, iterations);
+        counters.pixels++;
+        counters.iterations += n;
+        return n;
+    }
+
+}
@@ -0,0 +1,44 @@
+package sample;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The pixels and the iterations done by a benchmark. JMH
+ * shows them per second next to the operations, so the
+ * results are pixels/s and iterations/s
+ *
+ * The iterations are the sum of the values of the pixels,
+ * the ones what the fractal shows, also for the pixels
+ * what are skipped by the checks
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RenderCounters {
+
+    public long pixels;
+
+    public long iterations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        pixels = 0;
+        iterations = 0;
+    }
+
+    /**
+     * Adds the pixels and the iterations of a fractal
+     */
+    void add(int[] fractal, int size) {
+        long sum = 0;
+        for ( int i = 0; i < size; i++ ) {
+            sum += fractal[i];
+        }
+        pixels += size;
+        iterations += sum;
+    }
+
+}
@@ -0,0 +1,377 @@
+package sample;
+
+import points2d.Vec2dbd;
+import points2d.Vec2dd;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders a fixed catalog of scenes, as the application does
+ * a frame (FractalMath.buildFractal and the colors with the
+ * palette), and writes the results as JSON. It doesn't need
+ * JavaFX, so it can be run in any machine:
+ *
+ * java -cp target/benchmarks.jar sample.SceneBenchmark --size 1920x1080 --output results.json
+ *
+ * For each scene and size it gives the wall time, the pixels
+ * and iterations per second, the CPU time of each thread what
+ * has worked (the fractal-* threads and the main one) and the
+ * time spent by the garbage collector. The iterations are
+ * the sum of the values of the pixels (see RenderCounters)
+ */
+public class SceneBenchmark {
+
+    private static final String USAGE = "Usage: SceneBenchmark [--size WxH[,WxH...]] [--scene NAME[,NAME...]]"
+            + " [--method METHOD] [--warmup N] [--repeat N] [--output FILE]";
+
+    private static final float ADDED = 0.5f;
+
+    /**
+     * The standard scenes, the size of the view is its width in
+     * the world, the height is the one of the aspect of the image
+     */
+    enum Scene {
+        /**
+         * The whole set
+         */
+        FULL_SET("-0.5", "0.0", 3.5, 1000),
+        /**
+         * The border between the cardioid and the period-2 bulb
+         */
+        SEAHORSE_VALLEY("-0.745", "0.11", 0.05, 2000),
+        /**
+         * A minibrot of period 998 in the seahorse valley,
+         * it needs more digits than a double
+         */
+        DEEP_MINIBROT(
+                "-0.743643887037158870778064543493642575047609962321255060213888",
+                "0.131825904205312292821097354874767265262988599679042974937476",
+                4e-15, 5000),
+        /**
+         * Inside the period-3 bulb, what the cardioid check
+         * doesn't skip, so only the periodicity check helps
+         */
+        HIGH_ITERATION_INTERIOR("-0.122", "0.745", 0.1, 50000);
+
+        private final String centerX;
+
+        private final String centerY;
+
+        private final double viewWidth;
+
+        private final int iterations;
+
+        Scene(String centerX, String centerY, double viewWidth, int iterations) {
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.viewWidth = viewWidth;
+            this.iterations = iterations;
+        }
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<int[]> sizes = new ArrayList<>();
+        List<Scene> scenes = new ArrayList<>(Arrays.asList(Scene.values()));
+        FractalMath.FractalMethod mode = FractalMath.FractalMethod.FORK_JOIN;
+        int warmup = 2;
+        int repeat = 5;
+        String output = null;
+
+        try {
+            for ( int i = 0; i < args.length; i++ ) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch ( args[i] ) {
+                    case "--size":
+                        for ( String size : value.split(",") ) {
+                            String[] parts = size.toLowerCase(Locale.ROOT).split("x");
+                            sizes.add(new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])});
+                        }
+                        break;
+                    case "--scene":
+                        scenes.clear();
+                        for ( String scene : value.split(",") ) {
+                            scenes.add(Scene.valueOf(scene.toUpperCase(Locale.ROOT)));
+                        }
+                        break;
+                    case "--method":
+                        mode = FractalMath.FractalMethod.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(value);
+                        break;
+                    case "--repeat":
+                        repeat = Integer.parseInt(value);
+                        break;
+                    case "--output":
+                        output = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+                i++;
+            }
+            if ( repeat <= 0 || warmup < 0 ) {
+                throw new IllegalArgumentException("The repetitions must be positive");
+            }
+        } catch ( RuntimeException e ) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if ( sizes.isEmpty() ) {
+            sizes.add(new int[] {1280, 720});
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("java", System.getProperty("java.version"));
+        result.put("vm", System.getProperty("java.vm.name"));
+        result.put("os", System.getProperty("os.name"));
+        result.put("arch", System.getProperty("os.arch"));
+        result.put("processors", Runtime.getRuntime().availableProcessors());
+        result.put("maxMemoryMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        result.put("method", mode.name());
+        result.put("lanesKernel", LaneMath.isVectorKernel() ? "vector" : "scalar");
+        result.put("lanes", LaneMath.getLanes());
+        result.put("warmup", warmup);
+        result.put("repeat", repeat);
+
+        List<Object> results = new ArrayList<>();
+        for ( Scene scene : scenes ) {
+            for ( int[] size : sizes ) {
+                results.add(runScene(scene, size[0], size[1], mode, warmup, repeat));
+            }
+        }
+        result.put("scenes", results);
+
+        String json = toJson(result, "") + "\n";
+        if ( output == null ) {
+            PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8.name());
+            out.print(json);
+        } else {
+            Files.write(Paths.get(output), json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Renders the scene warmup + repeat times, only the last
+     * repeat ones are measured
+     */
+    private static Map<String, Object> runScene(Scene scene, int width, int height, FractalMath.FractalMethod mode, int warmup, int repeat) {
+        double pixelSize = scene.viewWidth / width;
+        Vec2dbd fractalTopLeft = new Vec2dbd(new BigDecimal(scene.centerX), new BigDecimal(scene.centerY));
+        fractalTopLeft.addToX(-width / 2.0 * pixelSize);
+        fractalTopLeft.addToY(-height / 2.0 * pixelSize);
+        Vec2dd topLeft = fractalTopLeft.toVec2dd();
+        Vec2dd bottomRight = new Vec2dd(topLeft.getX() + width * pixelSize, topLeft.getY() + height * pixelSize);
+        FractalMath.FractalMethod method = FractalMath.getPrecisionMethod(mode, topLeft, bottomRight, pixelSize);
+
+        int[] fractal = new int[width * height];
+        int[] pixels = new int[width * height];
+        int[] palette = ColorBuilder.buildPalette(scene.iterations, ADDED, ColorBuilder.WayToRender.SINE);
+
+        for ( int i = 0; i < warmup; i++ ) {
+            render(fractalTopLeft, pixelSize, width, height, scene.iterations, method, fractal, pixels, palette);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean isCpuTimeSupported = threads.isThreadCpuTimeSupported();
+        if ( isCpuTimeSupported ) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        Map<Long, String> names = new LinkedHashMap<>();
+        Map<Long, Long> startCpu = new LinkedHashMap<>();
+        long gcStartTime = getGcTime();
+        long gcStartCount = getGcCount();
+
+        long[] wall = new long[repeat];
+        long[] build = new long[repeat];
+        long[] color = new long[repeat];
+        long iterationsDone = 0;
+        for ( int i = 0; i < repeat; i++ ) {
+            // The threads are looked for each time, a pool can make new ones
+            if ( isCpuTimeSupported ) {
+                addThreads(threads, names, startCpu);
+            }
+            long[] times = render(fractalTopLeft, pixelSize, width, height, scene.iterations, method, fractal, pixels, palette);
+            build[i] = times[0];
+            color[i] = times[1];
+            wall[i] = times[0] + times[1];
+            for ( int value : fractal ) {
+                iterationsDone += value;
+            }
+        }
+        long totalWall = Arrays.stream(wall).sum();
+
+        List<Object> threadResults = new ArrayList<>();
+        if ( isCpuTimeSupported ) {
+            for ( Map.Entry<Long, String> thread : names.entrySet() ) {
+                long cpu = threads.getThreadCpuTime(thread.getKey());
+                if ( cpu < 0 ) {
+                    continue;
+                }
+                cpu -= startCpu.get(thread.getKey());
+                Map<String, Object> threadResult = new LinkedHashMap<>();
+                threadResult.put("name", thread.getValue());
+                threadResult.put("cpuMs", cpu / 1e6);
+                threadResult.put("utilization", (double) cpu / totalWall);
+                threadResults.add(threadResult);
+            }
+        }
+
+        Map<String, Object> sceneResult = new LinkedHashMap<>();
+        sceneResult.put("scene", scene.name());
+        sceneResult.put("width", width);
+        sceneResult.put("height", height);
+        sceneResult.put("iterations", scene.iterations);
+        sceneResult.put("method", method.name());
+        sceneResult.put("wallMs", getStats(wall));
+        sceneResult.put("buildMs", getStats(build));
+        sceneResult.put("colorMs", getStats(color));
+        sceneResult.put("mpixelsPerSecond", (double) width * height * repeat / totalWall * 1e3);
+        sceneResult.put("giterationsPerSecond", (double) iterationsDone / totalWall);
+        sceneResult.put("gcTimeMs", getGcTime() - gcStartTime);
+        sceneResult.put("gcCount", getGcCount() - gcStartCount);
+        sceneResult.put("threads", threadResults);
+        return sceneResult;
+    }
+
+    /**
+     * @return the nanoseconds of the fractal and of the colors
+     */
+    private static long[] render(
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int width,
+            int height,
+            int iterations,
+            FractalMath.FractalMethod method,
+            int[] fractal,
+            int[] pixels,
+            int[] palette
+    ) {
+        // Each frame of TILED would be only the cache
+        TileMath.getTileCache().clear();
+        long startTime = System.nanoTime();
+        FractalMath.buildFractal(fractalTopLeft, pixelSize, width, height, iterations, fractal, method).join();
+        long buildTime = System.nanoTime();
+        ColorBuilder.buildColors(fractal, pixels, palette, ADDED, ColorBuilder.WayToRender.SINE);
+        long colorTime = System.nanoTime();
+        return new long[] {buildTime - startTime, colorTime - buildTime};
+    }
+
+    /**
+     * Adds the fractal-* threads and this one, with their CPU
+     * time now, if they aren't already in the maps
+     */
+    private static void addThreads(ThreadMXBean threads, Map<Long, String> names, Map<Long, Long> startCpu) {
+        for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+            if ( (thread.getName().startsWith("fractal-") || thread == Thread.currentThread())
+                    && !names.containsKey(thread.getId()) ) {
+                long cpu = threads.getThreadCpuTime(thread.getId());
+                if ( cpu >= 0 ) {
+                    names.put(thread.getId(), thread.getName());
+                    startCpu.put(thread.getId(), cpu);
+                }
+            }
+        }
+    }
+
+    private static long getGcTime() {
+        long time = 0;
+        for ( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() ) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for ( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() ) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return min, median, mean and max of the times, in milliseconds
+     */
+    private static Map<String, Object> getStats(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        double median = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("min", sorted[0] / 1e6);
+        stats.put("median", median / 1e6);
+        stats.put("mean", Arrays.stream(sorted).average().orElse(0) / 1e6);
+        stats.put("max", sorted[n - 1] / 1e6);
+        return stats;
+    }
+
+    /**
+     * The JSON of maps, lists, strings and numbers, without
+     * a library because the values are only these
+     */
+    private static String toJson(Object value, String indent) {
+        if ( value instanceof Map ) {
+            String inner = indent + "  ";
+            StringBuilder json = new StringBuilder("{");
+            String separator = "\n";
+            for ( Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet() ) {
+                json.append(separator).append(inner).append(toJson(entry.getKey(), inner))
+                        .append(": ").append(toJson(entry.getValue(), inner));
+                separator = ",\n";
+            }
+            return json.append("\n").append(indent).append("}").toString();
+        }
+        if ( value instanceof List ) {
+            List<?> list = (List<?>) value;
+            if ( list.isEmpty() ) {
+                return "[]";
+            }
+            String inner = indent + "  ";
+            StringBuilder json = new StringBuilder("[");
+            String separator = "\n";
+            for ( Object item : list ) {
+                json.append(separator).append(inner).append(toJson(item, inner));
+                separator = ",\n";
+            }
+            return json.append("\n").append(indent).append("]").toString();
+        }
+        if ( value instanceof Double ) {
+            double number = (Double) value;
+            return Double.isFinite(number) ? String.format(Locale.ROOT, "%.4f", number) : "null";
+        }
+        if ( value instanceof Number ) {
+            return value.toString();
+        }
+        StringBuilder json = new StringBuilder("\"");
+        for ( char c : String.valueOf(value).toCharArray() ) {
+            if ( c == '"' || c == '\\' ) {
+                json.append('\\').append(c);
+            } else if ( c < 0x20 ) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append("\"").toString();
+    }
+
+}
@@ -0,0 +1,118 @@
+package sample;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class contains the Vector API version of the lanes
+ *
+ * It is in its own source directory because it needs the
+ * jdk.incubator.vector module (JDK 17 or newer) and the flag
+ * --add-modules jdk.incubator.vector in the compiler and in the
+ * runtime. LaneMath only loads it when the module is present, if
+ * not (or if this class isn't compiled) it uses its own lanes
+ *
+ * A row is iterated in blocks of SPECIES.length() pixels (4 with
+ * AVX2, 8 with AVX-512), one pixel in each lane of the vectors.
+ * The lanes of a finished pixel are turned off in a mask and the
+ * block ends when all of them are off, so the lanes aren't refilled
+ * like in LaneMath: a block takes the time of its slowest pixel,
+ * but the pixels of a block are neighbours and they usually need
+ * about the same iterations
+ */
+public class VectorLaneMath implements LaneMath.SectionKernel {
+
+    /**
+     * The widest vector of doubles of the CPU
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * The lane numbers (0, 1, 2...), to get the x of each lane
+     */
+    private static final DoubleVector LANE_INDEX = DoubleVector.zero(SPECIES).addIndex(1);
+
+    @Override
+    public int getLanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * The same as LaneMath.createFractalSectionLanes. The values
+     * are the same as in FractalMath.mathCal: the operations are
+     * done in the same order and without fma
+     *
+     * @return the iterations done
+     */
+    @Override
+    public long createFractalSection(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        int lanes = SPECIES.length();
+        double[] counts = new double[lanes];
+        boolean[] inside = new boolean[lanes];
+
+        boolean cardioidCheck = FractalMath.isCardioidCheck();
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        long executedIterations = 0;
+
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * imgWidth;
+            double compCRow = y * yScale + fractalTop;
+            DoubleVector compC = DoubleVector.broadcast(SPECIES, compCRow);
+
+            for ( int x = x0; x < x1; x += lanes ) {
+                // The lanes after x1 (at the end of the row) start off
+                VectorMask<Double> active = SPECIES.indexInRange(x, x1);
+                DoubleVector realC = LANE_INDEX.add(x).mul(xScale).add(fractalLeft);
+
+                if ( cardioidCheck ) {
+                    for ( int l = 0; l < lanes; l++ ) {
+                        double realCx = (x + l) * xScale + fractalLeft;
+                        inside[l] = x + l < x1 && FractalMath.isInsideMainBulbs(realCx, compCRow);
+                        if ( inside[l] ) {
+                            fractal[row + x + l] = iterations;
+                        }
+                    }
+                    active = active.andNot(VectorMask.fromArray(SPECIES, inside, 0));
+                }
+                VectorMask<Double> calculated = active;
+
+                DoubleVector realZ = zero;
+                DoubleVector compZ = zero;
+                DoubleVector n = zero;
+                for ( int i = 0; i < iterations; i++ ) {
+                    VectorMask<Double> escaped = realZ.mul(realZ).add(compZ.mul(compZ)).compare(VectorOperators.GE, 4.0);
+                    active = active.andNot(escaped);
+                    if ( !active.anyTrue() ) {
+                        break;
+                    }
+                    DoubleVector temp = realZ.mul(realZ).sub(compZ.mul(compZ)).add(realC);
+                    compZ = realZ.mul(2.0).mul(compZ).add(compC);
+                    realZ = temp;
+                    n = n.add(1.0, active);
+                }
+
+                n.intoArray(counts, 0);
+                for ( int l = 0; l < lanes; l++ ) {
+                    if ( calculated.laneIsSet(l) ) {
+                        fractal[row + x + l] = (int) counts[l];
+                        executedIterations += (int) counts[l];
+                    }
+                }
+            }
+        }
+        return executedIterations;
+    }
+
+}
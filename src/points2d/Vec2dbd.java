@@ -0,0 +1,295 @@
+package points2d;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * This class represents a two dimensions
+ * vector BigDecimal type.
+ *
+ * It is used when a double hasn't enough digits, for example
+ * the position of a very deep zoom in the fractal. The sums
+ * are exact, the multiplications and divisions are rounded
+ * to the MathContext of the vector.
+ *
+ * @class Vec2dbd
+ */
+public class Vec2dbd implements Vec2d {
+
+    /**
+     * x component
+     */
+    private BigDecimal x;
+
+    /**
+     * y component
+     */
+    private BigDecimal y;
+
+    /**
+     * The precision of the multiplications and divisions
+     */
+    private MathContext mathContext;
+
+    /**
+     * Void constructor
+     */
+    public Vec2dbd() {
+        this.x = BigDecimal.ZERO;
+        this.y = BigDecimal.ZERO;
+        this.mathContext = MathContext.DECIMAL128;
+    }
+
+    /**
+     * Constructor
+     * @param x the value of x component
+     * @param y the value of y component
+     */
+    public Vec2dbd(BigDecimal x, BigDecimal y) {
+        this.x = x;
+        this.y = y;
+        this.mathContext = MathContext.DECIMAL128;
+    }
+
+    /**
+     * Constructor from doubles, the values are exact
+     * @param x the value of x component
+     * @param y the value of y component
+     */
+    public Vec2dbd(double x, double y) {
+        this(new BigDecimal(x), new BigDecimal(y));
+    }
+
+    /**
+     * Copy constructor
+     * @param vec2dbd the instance of the same object to copy the values
+     */
+    public Vec2dbd(Vec2dbd vec2dbd) {
+        this.x = vec2dbd.getX();
+        this.y = vec2dbd.getY();
+        this.mathContext = vec2dbd.getMathContext();
+    }
+
+    /**
+     * This method add to the components the amount
+     * pass as a parameter
+     * @param amount the amount to add to both components
+     */
+    public void add(BigDecimal amount) {
+        x = x.add(amount);
+        y = y.add(amount);
+    }
+
+    /**
+     * This method add to the x component the amount
+     * pass as a parameter
+     * @param amount the amount to add to the x component
+     */
+    public void addToX(BigDecimal amount) {
+        x = x.add(amount);
+    }
+
+    /**
+     * This method add to the y component the amount
+     * pass as a parameter
+     * @param amount the amount to add to the y component
+     */
+    public void addToY(BigDecimal amount) {
+        y = y.add(amount);
+    }
+
+    /**
+     * The same as above, but the amount is a double. The
+     * double is converted without rounding
+     * @param amount the amount to add to the x component
+     */
+    public void addToX(double amount) {
+        addToX(new BigDecimal(amount));
+    }
+
+    /**
+     * The same as above, but the amount is a double. The
+     * double is converted without rounding
+     * @param amount the amount to add to the y component
+     */
+    public void addToY(double amount) {
+        addToY(new BigDecimal(amount));
+    }
+
+    /**
+     * This method multiply the two components by the amount
+     * pass as a parameter
+     * @param amount the amount to multiply both components
+     */
+    public void multiply(BigDecimal amount) {
+        x = x.multiply(amount, mathContext);
+        y = y.multiply(amount, mathContext);
+    }
+
+    /**
+     * Getter for the x component
+     * @return the x component
+     */
+    public BigDecimal getX() {
+        return x;
+    }
+
+    /**
+     * Getter for the y component
+     * @return the y component
+     */
+    public BigDecimal getY() {
+        return y;
+    }
+
+    /**
+     * Setter for the x component
+     * @param x the new value for the x component
+     */
+    public void setX(BigDecimal x) {
+        this.x = x;
+    }
+
+    /**
+     * Setter for the y component
+     * @param y the new value for the y component
+     */
+    public void setY(BigDecimal y) {
+        this.y = y;
+    }
+
+    /**
+     * Getter for the precision of the multiplications and divisions
+     * @return the math context
+     */
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * Setter for the precision of the multiplications and divisions.
+     * The components are not rounded, only the next operations
+     * @param mathContext the new math context
+     */
+    public void setMathContext(MathContext mathContext) {
+        this.mathContext = mathContext;
+    }
+
+    /**
+     * This method returns the vector rounded to doubles
+     * @return a new vector with the nearest doubles
+     */
+    public Vec2dd toVec2dd() {
+        return new Vec2dd(x.doubleValue(), y.doubleValue());
+    }
+
+    /**
+     * This method returns the magnitude of the vector
+     * without make the root square.
+     * @return two times the magnitude of the vector
+     */
+    public BigDecimal mag2() {
+        return x.multiply(x, mathContext).add(y.multiply(y, mathContext), mathContext);
+    }
+
+    @Override
+    public void set(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2dbd ) {
+            Vec2dbd vec2dbd = (Vec2dbd) (vec2d);
+            setX(vec2dbd.getX());
+            setY(vec2dbd.getY());
+        } else if ( vec2d instanceof Vec2dd ) {
+            Vec2dd vec2dd = (Vec2dd) (vec2d);
+            setX(new BigDecimal(vec2dd.getX()));
+            setY(new BigDecimal(vec2dd.getY()));
+        } else if ( vec2d instanceof Vec2df ) {
+            Vec2df vec2df = (Vec2df) (vec2d);
+            setX(new BigDecimal(vec2df.getX()));
+            setY(new BigDecimal(vec2df.getY()));
+        } else if ( vec2d instanceof Vec2di ) {
+            Vec2di vec2di = (Vec2di) (vec2d);
+            setX(BigDecimal.valueOf(vec2di.getX()));
+            setY(BigDecimal.valueOf(vec2di.getY()));
+        } else {
+            this.x = BigDecimal.ZERO;
+            this.y = BigDecimal.ZERO;
+        }
+    }
+
+    @Override
+    public void add(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2dbd ) {
+            Vec2dbd vec2dbd = (Vec2dbd) (vec2d);
+            this.x = this.x.add(vec2dbd.getX());
+            this.y = this.y.add(vec2dbd.getY());
+        }
+    }
+
+    @Override
+    public void sub(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2dbd ) {
+            Vec2dbd vec2dbd = (Vec2dbd) (vec2d);
+            this.x = this.x.subtract(vec2dbd.getX());
+            this.y = this.y.subtract(vec2dbd.getY());
+        }
+    }
+
+    @Override
+    public void multiply(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2dbd ) {
+            Vec2dbd vec2dbd = (Vec2dbd) (vec2d);
+            this.x = this.x.multiply(vec2dbd.getX(), mathContext);
+            this.y = this.y.multiply(vec2dbd.getY(), mathContext);
+        }
+    }
+
+    @Override
+    public void divide(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2dbd ) {
+            Vec2dbd vec2dbd = (Vec2dbd) (vec2d);
+            this.x = this.x.divide(vec2dbd.getX(), mathContext);
+            this.y = this.y.divide(vec2dbd.getY(), mathContext);
+        }
+    }
+
+    /**
+     * BigDecimal has no square root in Java 8, so the
+     * magnitude is done with doubles. The direction of a
+     * vector doesn't need more digits than a double
+     */
+    @Override
+    public void normalize() {
+        Vec2dd normal = (Vec2dd) toVec2dd().normal();
+        this.x = new BigDecimal(normal.getX());
+        this.y = new BigDecimal(normal.getY());
+    }
+
+    @Override
+    public Vec2d normal() {
+        Vec2dbd normal = new Vec2dbd(this);
+        normal.normalize();
+        return normal;
+    }
+
+    @Override
+    public Vec2d perpendicular() {
+        return new Vec2dbd(y.negate(), x);
+    }
+
+    @Override
+    public void translateThisAngle(float angle) {
+        angle *= (Math.PI / 180.0f);
+        BigDecimal cos = new BigDecimal(Math.cos(angle));
+        BigDecimal sin = new BigDecimal(Math.sin(angle));
+        BigDecimal x = this.x.multiply(cos, mathContext).subtract(this.y.multiply(sin, mathContext), mathContext);
+        BigDecimal y = this.x.multiply(sin, mathContext).add(this.y.multiply(cos, mathContext), mathContext);
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public String toString() {
+        return x + "x " + y + "y";
+    }
+
+}
@@ -0,0 +1,242 @@
+package points2d;
+
+import java.math.BigDecimal;
+
+/**
+ * This class represents a two dimensions
+ * vector double-double type.
+ *
+ * Each component is the sum of two doubles, the high part
+ * and the low part (the rounding error of the high part),
+ * so it has about 32 digits instead of 16. It is much faster
+ * than BigDecimal and enough for zooms until 1e30.
+ *
+ * https://en.wikipedia.org/wiki/Quadruple-precision_floating-point_format#Double-double_arithmetic
+ *
+ * @class Vec2ddd
+ */
+public class Vec2ddd implements Vec2d {
+
+    /**
+     * x component, high part
+     */
+    private double xHi;
+
+    /**
+     * x component, low part
+     */
+    private double xLo;
+
+    /**
+     * y component, high part
+     */
+    private double yHi;
+
+    /**
+     * y component, low part
+     */
+    private double yLo;
+
+    /**
+     * Void constructor
+     */
+    public Vec2ddd() {
+        this(0.0, 0.0);
+    }
+
+    /**
+     * Constructor
+     * @param x the value of x component
+     * @param y the value of y component
+     */
+    public Vec2ddd(double x, double y) {
+        this.xHi = x;
+        this.xLo = 0.0;
+        this.yHi = y;
+        this.yLo = 0.0;
+    }
+
+    /**
+     * Constructor with the two parts of each component
+     */
+    public Vec2ddd(double xHi, double xLo, double yHi, double yLo) {
+        this.xHi = xHi;
+        this.xLo = xLo;
+        this.yHi = yHi;
+        this.yLo = yLo;
+    }
+
+    /**
+     * Constructor from a BigDecimal vector, the digits
+     * after the first 32 are lost
+     * @param vec2dbd the high precision vector
+     */
+    public Vec2ddd(Vec2dbd vec2dbd) {
+        this.xHi = vec2dbd.getX().doubleValue();
+        this.xLo = vec2dbd.getX().subtract(new BigDecimal(xHi)).doubleValue();
+        this.yHi = vec2dbd.getY().doubleValue();
+        this.yLo = vec2dbd.getY().subtract(new BigDecimal(yHi)).doubleValue();
+    }
+
+    /**
+     * Copy constructor
+     * @param vec2ddd the instance of the same object to copy the values
+     */
+    public Vec2ddd(Vec2ddd vec2ddd) {
+        this(vec2ddd.getXHi(), vec2ddd.getXLo(), vec2ddd.getYHi(), vec2ddd.getYLo());
+    }
+
+    /**
+     * This method add to the x component the amount
+     * pass as a parameter
+     * @param amount the amount to add to the x component
+     */
+    public void addToX(double amount) {
+        double sum = xHi + amount;
+        double error = twoSumError(xHi, amount, sum) + xLo;
+        xHi = sum + error;
+        xLo = error - (xHi - sum);
+    }
+
+    /**
+     * This method add to the y component the amount
+     * pass as a parameter
+     * @param amount the amount to add to the y component
+     */
+    public void addToY(double amount) {
+        double sum = yHi + amount;
+        double error = twoSumError(yHi, amount, sum) + yLo;
+        yHi = sum + error;
+        yLo = error - (yHi - sum);
+    }
+
+    public double getXHi() {
+        return xHi;
+    }
+
+    public double getXLo() {
+        return xLo;
+    }
+
+    public double getYHi() {
+        return yHi;
+    }
+
+    public double getYLo() {
+        return yLo;
+    }
+
+    /**
+     * This method returns the vector rounded to doubles
+     * @return a new vector with only the high parts
+     */
+    public Vec2dd toVec2dd() {
+        return new Vec2dd(xHi + xLo, yHi + yLo);
+    }
+
+    /**
+     * The rounding error of a + b, where sum is a + b
+     * rounded to double (Knuth's two-sum)
+     */
+    private static double twoSumError(double a, double b, double sum) {
+        double bVirtual = sum - a;
+        return (a - (sum - bVirtual)) + (b - bVirtual);
+    }
+
+    @Override
+    public void set(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2ddd ) {
+            Vec2ddd vec2ddd = (Vec2ddd) (vec2d);
+            this.xHi = vec2ddd.getXHi();
+            this.xLo = vec2ddd.getXLo();
+            this.yHi = vec2ddd.getYHi();
+            this.yLo = vec2ddd.getYLo();
+        } else if ( vec2d instanceof Vec2dbd ) {
+            set(new Vec2ddd((Vec2dbd) vec2d));
+        } else if ( vec2d instanceof Vec2dd ) {
+            Vec2dd vec2dd = (Vec2dd) (vec2d);
+            set(new Vec2ddd(vec2dd.getX(), vec2dd.getY()));
+        } else if ( vec2d instanceof Vec2df ) {
+            Vec2df vec2df = (Vec2df) (vec2d);
+            set(new Vec2ddd(vec2df.getX(), vec2df.getY()));
+        } else if ( vec2d instanceof Vec2di ) {
+            Vec2di vec2di = (Vec2di) (vec2d);
+            set(new Vec2ddd(vec2di.getX(), vec2di.getY()));
+        } else {
+            set(new Vec2ddd());
+        }
+    }
+
+    @Override
+    public void add(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2ddd ) {
+            Vec2ddd vec2ddd = (Vec2ddd) (vec2d);
+            addToX(vec2ddd.getXHi());
+            addToX(vec2ddd.getXLo());
+            addToY(vec2ddd.getYHi());
+            addToY(vec2ddd.getYLo());
+        }
+    }
+
+    @Override
+    public void sub(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2ddd ) {
+            Vec2ddd vec2ddd = (Vec2ddd) (vec2d);
+            addToX(-vec2ddd.getXHi());
+            addToX(-vec2ddd.getXLo());
+            addToY(-vec2ddd.getYHi());
+            addToY(-vec2ddd.getYLo());
+        }
+    }
+
+    /**
+     * The multiplications and divisions are done with
+     * doubles, only the sums keep all the digits
+     */
+    @Override
+    public void multiply(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2ddd ) {
+            Vec2dd vec2dd = ((Vec2ddd) vec2d).toVec2dd();
+            set(new Vec2ddd(toVec2dd().getX() * vec2dd.getX(), toVec2dd().getY() * vec2dd.getY()));
+        }
+    }
+
+    @Override
+    public void divide(Vec2d vec2d) {
+        if ( vec2d instanceof Vec2ddd ) {
+            Vec2dd vec2dd = ((Vec2ddd) vec2d).toVec2dd();
+            set(new Vec2ddd(toVec2dd().getX() / vec2dd.getX(), toVec2dd().getY() / vec2dd.getY()));
+        }
+    }
+
+    @Override
+    public void normalize() {
+        Vec2dd normal = (Vec2dd) toVec2dd().normal();
+        set(new Vec2ddd(normal.getX(), normal.getY()));
+    }
+
+    @Override
+    public Vec2d normal() {
+        Vec2ddd normal = new Vec2ddd(this);
+        normal.normalize();
+        return normal;
+    }
+
+    @Override
+    public Vec2d perpendicular() {
+        return new Vec2ddd(-yHi, -yLo, xHi, xLo);
+    }
+
+    @Override
+    public void translateThisAngle(float angle) {
+        Vec2dd vec2dd = toVec2dd();
+        vec2dd.translateThisAngle(angle);
+        set(new Vec2ddd(vec2dd.getX(), vec2dd.getY()));
+    }
+
+    @Override
+    public String toString() {
+        return (xHi + xLo) + "x " + (yHi + yLo) + "y";
+    }
+
+}
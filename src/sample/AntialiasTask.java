@@ -0,0 +1,185 @@
+package sample;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The rows [y0, y1) of an anti-aliased image to paint in
+ * the fork join pool (see FractalMath.createFractalAntialiased)
+ *
+ * The fractal array has one sample per pixel. A pixel whose
+ * value is the same as its neighbours (with a margin of threshold
+ * iterations) takes the color of its sample. The pixels in an edge
+ * are cut in four squares with a random sample in each one, and
+ * while the four samples are different each square is cut again,
+ * until maxDepth. The color of the pixel is the mean of the colors
+ * of its squares, so only the edges pay for the extra samples
+ *
+ * The random numbers are seeded with the pixel, so the same
+ * image gives always the same result
+ *
+ * It returns the number of extra samples
+ */
+class AntialiasTask extends RecursiveTask<Long> {
+
+    /**
+     * Rows for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    private final int y0;
+
+    private final int y1;
+
+    private final double xScale;
+
+    private final double yScale;
+
+    private final double fractalLeft;
+
+    private final double fractalTop;
+
+    private final int iterations;
+
+    private final int[] fractal;
+
+    private final int imgWidth;
+
+    private final int imgHeight;
+
+    private final int threshold;
+
+    private final int maxDepth;
+
+    private final int[] palette;
+
+    private final float added;
+
+    private final ColorBuilder.WayToRender way;
+
+    private final int[] pixels;
+
+    /**
+     * The extra samples of this task
+     */
+    private long samples;
+
+    AntialiasTask(
+            int y0, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            int imgHeight,
+            int threshold,
+            int maxDepth,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            int[] pixels
+    ) {
+        this.y0 = y0;
+        this.y1 = y1;
+        this.xScale = xScale;
+        this.yScale = yScale;
+        this.fractalLeft = fractalLeft;
+        this.fractalTop = fractalTop;
+        this.iterations = iterations;
+        this.fractal = fractal;
+        this.imgWidth = imgWidth;
+        this.imgHeight = imgHeight;
+        this.threshold = threshold;
+        this.maxDepth = maxDepth;
+        this.palette = palette;
+        this.added = added;
+        this.way = way;
+        this.pixels = pixels;
+    }
+
+    @Override
+    protected Long compute() {
+        if ( y1 - y0 > ROWS_PER_TASK ) {
+            int yMid = y0 + (y1 - y0) / 2;
+            AntialiasTask top = split(y0, yMid);
+            AntialiasTask bottom = split(yMid, y1);
+            top.fork();
+            return bottom.compute() + top.join();
+        }
+
+        for ( int y = y0; y < y1; y++ ) {
+            for ( int x = 0; x < imgWidth; x++ ) {
+                int i = y * imgWidth + x;
+                if ( isEdge(x, y) ) {
+                    SplittableRandom random = new SplittableRandom(i);
+                    pixels[i] = sampleSquare(x * xScale + fractalLeft, y * yScale + fractalTop, xScale, yScale, 1, random);
+                } else {
+                    pixels[i] = ColorBuilder.getColor(fractal[i], palette, added, way);
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * @return true if a neighbour of the pixel has a value
+     * more than threshold iterations different
+     */
+    private boolean isEdge(int x, int y) {
+        int value = fractal[y * imgWidth + x];
+        for ( int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, imgHeight - 1); ny++ ) {
+            for ( int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, imgWidth - 1); nx++ ) {
+                if ( Math.abs(fractal[ny * imgWidth + nx] - value) > threshold ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The mean color of the square centered in (centerX, centerY),
+     * with a random sample in each quarter. The quarters are
+     * sampled again if their samples are too different
+     */
+    private int sampleSquare(double centerX, double centerY, double width, double height, int depth, SplittableRandom random) {
+        int[] values = new int[4];
+        double[] realCs = new double[4];
+        double[] compCs = new double[4];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for ( int q = 0; q < 4; q++ ) {
+            // The center of the quarter, moved randomly inside it
+            realCs[q] = centerX + ((q & 1) == 0 ? -0.25 : 0.25) * width;
+            compCs[q] = centerY + ((q & 2) == 0 ? -0.25 : 0.25) * height;
+            double realC = realCs[q] + (random.nextDouble() - 0.5) * width / 2;
+            double compC = compCs[q] + (random.nextDouble() - 0.5) * height / 2;
+            values[q] = FractalMath.mathCal(realC, compC, iterations, FractalMath.getPeriodicityTolerance(width / 2));
+            min = Math.min(min, values[q]);
+            max = Math.max(max, values[q]);
+        }
+        samples += 4;
+
+        boolean isDeeper = depth < maxDepth && max - min > threshold;
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        for ( int q = 0; q < 4; q++ ) {
+            int color = isDeeper
+                    ? sampleSquare(realCs[q], compCs[q], width / 2, height / 2, depth + 1, random)
+                    : ColorBuilder.getColor(values[q], palette, added, way);
+            red += (color >> 16) & 0xff;
+            green += (color >> 8) & 0xff;
+            blue += color & 0xff;
+        }
+        return 0xff << 24 | (red / 4) << 16 | (green / 4) << 8 | (blue / 4);
+    }
+
+    private AntialiasTask split(int y0, int y1) {
+        return new AntialiasTask(y0, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal,
+                imgWidth, imgHeight, threshold, maxDepth, palette, added, way, pixels);
+    }
+
+}
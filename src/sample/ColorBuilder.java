@@ -121,17 +121,27 @@ public class ColorBuilder {
     }
 
     /**
-     * sine of val^2
+     * The colors of cos and sin repeat each 20 values
+     * (q = val * 0.1 and the triangle wave repeats each 2),
+     * so val^2 is taken modulo 20. It gives the same colors
+     * and val^2 doesn't overflow after 46340 iterations
      */
-    private static int buildColorCosineSquare(int val, float added) {
-        return buildColorCosine(val * val, added);
+    private static int square(int val) {
+        return (int) ((long) val * val % 20);
     }
 
     /**
      * cos of val^2
      */
+    private static int buildColorCosineSquare(int val, float added) {
+        return buildColorCosine(square(val), added);
+    }
+
+    /**
+     * sine of val^2
+     */
     private static int buildColorSineSquare(int val, float added) {
-        return buildColorSine(val * val, added);
+        return buildColorSine(square(val), added);
     }
 
     public static int buildColor(int fractalValue, float added, WayToRender way) {
@@ -149,4 +159,40 @@ public class ColorBuilder {
         }
     }
 
+    /**
+     * The color only depends on the value, the added color and
+     * the way, so the colors of all the values until the iterations
+     * can be done once and kept in a table (palette)
+     *
+     * @return the colors of the values [0, iterations]
+     */
+    public static int[] buildPalette(int iterations, float added, WayToRender way) {
+        int[] palette = new int[Math.max(iterations, 0) + 1];
+        for ( int i = 0; i < palette.length; i++ ) {
+            palette[i] = buildColor(i, added, way);
+        }
+        return palette;
+    }
+
+    /**
+     * The color of the value from the palette. The values out of
+     * the palette (a frame with more iterations still shown)
+     * are done with buildColor
+     */
+    public static int getColor(int fractalValue, int[] palette, float added, WayToRender way) {
+        if ( fractalValue >= 0 && fractalValue < palette.length ) {
+            return palette[fractalValue];
+        }
+        return buildColor(fractalValue, added, way);
+    }
+
+    /**
+     * Paints the fractal with the palette (see getColor)
+     */
+    public static void buildColors(int[] fractal, int[] pixels, int[] palette, float added, WayToRender way) {
+        for ( int i = 0; i < pixels.length; i++ ) {
+            pixels[i] = getColor(fractal[i], palette, added, way);
+        }
+    }
+
 }
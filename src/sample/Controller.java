@@ -1,7 +1,9 @@
 package sample;
 
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.fxml.FXML;
+import javafx.geometry.Rectangle2D;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
@@ -9,11 +11,23 @@ import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
+import points2d.Vec2dbd;
 import points2d.Vec2dd;
+import points2d.Vec2ddd;
+import points2d.Vec2di;
 import sample.utils.IOUtils;
+import sample.utils.IterationFile;
+import sample.utils.MessageUtils;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The controller of the javafx application
@@ -25,6 +39,23 @@ public class Controller implements Initializable {
      */
     private final int INCREASE_ITERATIONS = 16;
 
+    /**
+     * The step of the first progressive pass: one pixel of
+     * each 8 x 8 block. Each next pass halves it until 1
+     */
+    private static final int PROGRESSIVE_FIRST_STEP = 8;
+
+    /**
+     * Time after the last scroll what still counts as moving
+     */
+    private static final long SCROLL_MOVING_TIME = 250000000L;
+
+    /**
+     * Max distance to a whole number of pixels to move
+     * the fractal array instead of calculating it again
+     */
+    private static final double MAX_SHIFT_ERROR = 1e-6;
+
     @FXML
     private BorderPane borderPane;
 
@@ -37,6 +68,21 @@ public class Controller implements Initializable {
     @FXML
     private ComboBox<String> comboBoxPerformance;
 
+    @FXML
+    private CheckBox checkBoxCardioid;
+
+    @FXML
+    private CheckBox checkBoxPeriodicity;
+
+    @FXML
+    private CheckBox checkBoxResume;
+
+    @FXML
+    private Spinner<Integer> spinnerTileMemory;
+
+    @FXML
+    private CheckBox checkBoxAntialias;
+
     @FXML
     private Slider sliderColor;
 
@@ -49,9 +95,42 @@ public class Controller implements Initializable {
     @FXML
     private Button btnSave;
 
+    @FXML
+    private Button btnPoster;
+
+    @FXML
+    private Button btnSaveIterations;
+
+    @FXML
+    private Button btnLoadIterations;
+
+    @FXML
+    private CheckBox checkBoxPosterIterations;
+
+    @FXML
+    private Button btnAnimationStart;
+
+    @FXML
+    private Button btnAnimation;
+
+    @FXML
+    private TextField txtFieldFrames;
+
+    @FXML
+    private ComboBox<String> comboBoxEasing;
+
+    @FXML
+    private Button btnExpMap;
+
+    @FXML
+    private Button btnAnimationFromMap;
+
     @FXML
     private Label lblFps;
 
+    @FXML
+    private Label lblPacing;
+
     @FXML
     private Label lblTime;
 
@@ -70,11 +149,32 @@ public class Controller implements Initializable {
     @FXML
     private TextField txtFieldSaveName;
 
+    @FXML
+    private TextField txtFieldPosterWidth;
+
+    @FXML
+    private TextField txtFieldPosterHeight;
+
+    @FXML
+    private Label lblExport;
+
     @FXML
     private ImageView imageView;
 
     private WritableImage img;
 
+    /**
+     * The two images what are painted and shown by turns
+     * (see ImageBuffers), img is the one shown
+     */
+    private ImageBuffers imageBuffers;
+
+    /**
+     * The colors being written in the back image. Until it is
+     * done the fractal array what is painted can't change
+     */
+    private CompletableFuture<Rectangle2D> painting;
+
     private ReadOnlyStringWrapper stringDuration = new ReadOnlyStringWrapper(this, "duration", "0");
 
     private ReadOnlyStringWrapper stringAddedColor = new ReadOnlyStringWrapper(this, "AddedColor", "0");
@@ -83,19 +183,150 @@ public class Controller implements Initializable {
 
     private ReadOnlyStringWrapper stringSection = new ReadOnlyStringWrapper(this, "Section", "Section: ");
 
-    private int[] pixels;
+    private ReadOnlyStringWrapper stringExport = new ReadOnlyStringWrapper(this, "Export", "");
 
     private int[] fractal;
 
+    /**
+     * A copy of the fractal array of the last frame done. The
+     * fractal array is written by the threads while a frame is
+     * being built, this one is always complete
+     */
+    private int[] completedFractal;
+
+    private ViewState completedView;
+
+    /**
+     * The step of completedFractal, 1 if it has all the pixels
+     * and more if it is a progressive pass (or 0 if it is a file
+     * what doesn't fill the screen). Only a step of 1 is saved
+     */
+    private int completedStep;
+
+    /**
+     * The zoom preview: the last frame done moved and scaled
+     * to the new view, shown until the frame of the view is done
+     */
+    private int[] previewFractal;
+
+    /**
+     * What render paints (completedFractal or previewFractal)
+     * and its view
+     */
+    private int[] displayedFractal;
+
+    private ViewState displayedView;
+
+    /**
+     * The timer what calls update and render, it keeps the
+     * times of the frames (see CustomTimer.getIntervals)
+     */
+    private CustomTimer timer;
+
+    /**
+     * The frame what is being built. Until it is done the
+     * fractal array is being written by the threads, so no
+     * other frame is started and it isn't painted
+     */
+    private CompletableFuture<Long> frame;
+
+    /**
+     * The view of the frame what is being built
+     */
+    private ViewState frameView;
+
+    /**
+     * The step of the frame what is being built, 1 if it
+     * is the full image and more if it is a progressive pass
+     */
+    private int frameStep;
+
+    /**
+     * Set to cancel the progressive pass what is being built
+     */
+    private AtomicBoolean frameCancelled = new AtomicBoolean();
+
+    /**
+     * The view and the step of what the fractal array has. It is
+     * null if the fractal array has a cancelled pass
+     */
+    private ViewState fractalView;
+
+    private int fractalStep;
+
+    /**
+     * Versions of the data what is painted. fractalVersion grows
+     * each time a frame changes the fractal array and colorVersion
+     * each time the colors change, render only paints when one of
+     * them is different to the painted one
+     */
+    private int fractalVersion;
+
+    private int colorVersion;
+
+    private int paintedFractalVersion = -1;
+
+    private int paintedColorVersion = -1;
+
+    /**
+     * The colors of the values (see ColorBuilder.buildPalette),
+     * done again when the colors or the iterations change
+     */
+    private int[] palette;
+
+    private int paletteColorVersion = -1;
+
+    private int paletteIterations = -1;
+
+    /**
+     * Set when the cardioid or the periodicity check change,
+     * the next frame can't reuse the fractal array
+     */
+    private boolean areChecksChanged = false;
+
+    /**
+     * If it is true, raising the iterations continues the pixels
+     * from their last z (see ResumeMath). The frames are done with
+     * ResumeMath and not with the chosen method, so it is off
+     * until the operator turns it on
+     */
+    private boolean resumeIterations = false;
+
+    /**
+     * The last z of each pixel, they are created the first
+     * time a frame keeps them
+     */
+    private double[] orbitReal;
+
+    private double[] orbitComp;
+
+    /**
+     * The view of the saved z, null if they aren't valid
+     */
+    private ViewState orbitView;
+
+    /**
+     * True if the frame what is being built saves the z
+     */
+    private boolean frameKeepsOrbit;
+
+    /**
+     * True while a file of iterations is being read (see
+     * loadIterations), no frame is started until it is shown
+     */
+    private boolean isLoading = false;
+
     private Vec2dd mousePos;
 
     private Vec2dd offset = new Vec2dd(-4.0, -2.0);
 
-    private Vec2dd startPan = new Vec2dd();
-
-    private Vec2dd mouseWorldBeforeZoom = new Vec2dd();
+    /**
+     * The same as offset but with all the digits, for the deep
+     * zooms. Both are changed at the same time by moveOffset
+     */
+    private Vec2dbd deepOffset = new Vec2dbd(offset.getX(), offset.getY());
 
-    private Vec2dd mouseWorldAfterZoom = new Vec2dd();
+    private Vec2dd startPan = new Vec2dd();
 
     private double scale = 120.0f;
 
@@ -111,30 +342,47 @@ public class Controller implements Initializable {
 
     private boolean isAKeyHeld = false;
 
+    private boolean isMouseDragging = false;
+
+    private long lastScrollTime;
+
+    /**
+     * The first view of the zoom animation, the last one
+     * is the view when the animation is exported
+     */
+    private Vec2dbd animationStartCenter;
+
+    private double animationStartScale;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        img = new WritableImage((int)imageView.getFitWidth(), (int)imageView.getFitHeight());
+        imageBuffers = new ImageBuffers((int)imageView.getFitWidth(), (int)imageView.getFitHeight());
+        img = imageBuffers.getFrontImage();
         imageView.setImage(img);
 
         int size = (int) (img.getWidth() * img.getHeight());
-        pixels = new int[size];
         fractal = new int[size];
+        completedFractal = new int[size];
+        previewFractal = new int[size];
+        displayedFractal = completedFractal;
 
         mousePos = new Vec2dd();
 
         setBorderPaneEvents();
         setImageViewEvents();
         setComboBoxesEvents();
+        setCheckBoxesEvents();
         setSpinnerEvents();
         setSliderEvents();
         setButtonsEvents();
         setLabelBinds();
 
-        CustomTimer t = new CustomTimer();
-        t.setUpdater(this::update);
-        t.setRenderer(this::render);
-        lblFps.textProperty().bind(t.getTextFps());
-        t.start();
+        timer = new CustomTimer();
+        timer.setUpdater(this::update);
+        timer.setRenderer(this::render);
+        lblFps.textProperty().bind(timer.getTextFps());
+        lblPacing.textProperty().bind(timer.getTextPacing());
+        timer.start();
     }
 
     private void setBorderPaneEvents() {
@@ -164,37 +412,31 @@ public class Controller implements Initializable {
         });
 
         imageView.setOnMousePressed(event -> {
+            isMouseDragging = true;
             startPan.setX(event.getX());
             startPan.setY(event.getY());
         });
 
         imageView.setOnMouseDragged(event -> {
-            offset.addToX(- (event.getX() - startPan.getX() ) / scale );
-            offset.addToY(- (event.getY() - startPan.getY() ) / scale );
+            moveOffset(- (event.getX() - startPan.getX() ) / scale, - (event.getY() - startPan.getY() ) / scale );
             startPan.setX(event.getX());
             startPan.setY(event.getY());
         });
 
         imageView.setOnMouseReleased(event -> {
-            offset.addToX(event.getX() - startPan.getX());
-            offset.addToY(event.getY() - startPan.getY());
+            isMouseDragging = false;
+            moveOffset(event.getX() - startPan.getX(), event.getY() - startPan.getY());
         });
 
         imageView.setOnScroll(event -> {
-            screenToWorld(new Vec2dd(event.getX(), event.getY()), mouseWorldBeforeZoom, offset, scale);
-
+            lastScrollTime = System.nanoTime();
             double deltaY = event.getDeltaY();
             if ( deltaY < 0 ) {
-                scale *= 0.95;
+                zoom(new Vec2dd(event.getX(), event.getY()), 0.95);
             }
             if ( deltaY > 0 ) {
-                scale *= 1.05;
+                zoom(new Vec2dd(event.getX(), event.getY()), 1.05);
             }
-
-            screenToWorld(new Vec2dd(event.getX(), event.getY()), mouseWorldAfterZoom, offset, scale);
-
-            offset.addToX(mouseWorldBeforeZoom.getX() - mouseWorldAfterZoom.getX());
-            offset.addToY(mouseWorldBeforeZoom.getY() - mouseWorldAfterZoom.getY());
         });
     }
 
@@ -207,7 +449,34 @@ public class Controller implements Initializable {
             iterations -= INCREASE_ITERATIONS;
             spinnerIterations.getValueFactory().setValue(iterations);
         });
-        btnSave.setOnAction(event -> IOUtils.saveImage(img, txtFieldSaveDirectory.getText(), txtFieldSaveName.getText()));
+        btnSave.setOnAction(event -> {
+            if ( checkBoxAntialias.isSelected() ) {
+                saveAntialiasedImage();
+            } else {
+                IOUtils.saveImage(img, txtFieldSaveDirectory.getText(), txtFieldSaveName.getText());
+            }
+        });
+        btnPoster.setOnAction(event -> exportPoster());
+        btnSaveIterations.setOnAction(event -> {
+            if ( completedView == null || completedStep != 1 ) {
+                MessageUtils.showError("No hay iteraciones", "Espera a que se termine de calcular el fractal.");
+                return;
+            }
+            IterationFile.Header header = new IterationFile.Header(
+                    (int)img.getWidth(), (int)img.getHeight(),
+                    completedView.getIterations(), FractalMath.getFormula(),
+                    completedView.getScale(), completedView.getOffsetX(), completedView.getOffsetY());
+            IOUtils.saveIterations(txtFieldSaveDirectory.getText(), txtFieldSaveName.getText(), header, completedFractal);
+        });
+        btnLoadIterations.setOnAction(event -> loadIterations());
+        btnAnimationStart.setOnAction(event -> {
+            animationStartCenter = getCenter();
+            animationStartScale = scale;
+            stringExport.set("Inicio de animación marcado");
+        });
+        btnAnimation.setOnAction(event -> exportAnimation());
+        btnExpMap.setOnAction(event -> exportExpMap());
+        btnAnimationFromMap.setOnAction(event -> exportAnimationFromMap());
     }
 
     private void setComboBoxesEvents() {
@@ -222,8 +491,14 @@ public class Controller implements Initializable {
             comboBoxRendering.getItems().add(way.name().toLowerCase());
         }
         comboBoxRendering.setValue(paintingMode.name().toLowerCase());
+
+        for ( ZoomAnimator.Easing easing : ZoomAnimator.Easing.values() ) {
+            comboBoxEasing.getItems().add(easing.name().toLowerCase());
+        }
+        comboBoxEasing.getSelectionModel().select(0);
         comboBoxRendering.setOnAction(event -> {
             paintingMode = ColorBuilder.WayToRender.values()[comboBoxRendering.getSelectionModel().getSelectedIndex()];
+            colorVersion++;
             if ( paintingMode == ColorBuilder.WayToRender.RESIDUAL ) {
                 sliderColor.setDisable(true);
             } else {               sliderColor.setDisable(false);
@@ -231,11 +506,34 @@ public class Controller implements Initializable {
         });
     }
 
+    private void setCheckBoxesEvents() {
+        checkBoxCardioid.setSelected(FractalMath.isCardioidCheck());
+        // The checks can change some pixels, so the fractal and
+        // the cached tiles are done again
+        checkBoxCardioid.setOnAction(event -> {
+            FractalMath.setCardioidCheck(checkBoxCardioid.isSelected());
+            TileMath.getTileCache().clear();
+            areChecksChanged = true;
+        });
+        checkBoxPeriodicity.setSelected(FractalMath.isPeriodicityCheck());
+        checkBoxPeriodicity.setOnAction(event -> {
+            FractalMath.setPeriodicityCheck(checkBoxPeriodicity.isSelected());
+            TileMath.getTileCache().clear();
+            areChecksChanged = true;
+        });
+        checkBoxResume.setSelected(resumeIterations);
+        checkBoxResume.setOnAction(event -> {
+            resumeIterations = checkBoxResume.isSelected();
+            orbitView = null;
+        });
+    }
+
     private void setLabelBinds() {
         lblTime.textProperty().bind(stringDuration);
         lblAddedColor.textProperty().bind(stringAddedColor);
         lblZoom.textProperty().bind(stringZoom);
         lblFractalSection.textProperty().bind(stringSection);
+        lblExport.textProperty().bind(stringExport);
     }
 
     private void setSpinnerEvents() {
@@ -243,12 +541,21 @@ public class Controller implements Initializable {
         spinnerIterations.setValueFactory(valueFactory);
         spinnerIterations.valueProperty().addListener((observable, oldValue, newValue) -> iterations = newValue);
 
+        // The budget of the tile cache in MB, a smaller one drops the oldest tiles
+        TileCache tileCache = TileMath.getTileCache();
+        SpinnerValueFactory<Integer> tileMemoryFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                16, 8192, (int) (tileCache.getMemoryBudget() / (1024 * 1024)), 16);
+        spinnerTileMemory.setValueFactory(tileMemoryFactory);
+        spinnerTileMemory.valueProperty().addListener((observable, oldValue, newValue) ->
+                tileCache.setMemoryBudget(newValue * 1024L * 1024L));
+
     }
 
     private void setSliderEvents() {
         sliderColor.valueProperty().addListener((ov, old_val, new_val) -> {
             colorAdded = (float)Math.PI * new_val.floatValue() / 100.0f;
             stringAddedColor.set(addedColorStringBuilder(colorAdded));
+            colorVersion++;
         });
         colorAdded = (float)(sliderColor.getValue());
         stringAddedColor.set(addedColorStringBuilder(colorAdded));
@@ -263,25 +570,72 @@ public class Controller implements Initializable {
         out.setY(screenToWorld(in.getY(), offset.getY(), scale));
     }
 
+    /**
+     * Moves the offset (and the deep offset) an amount
+     * of world units
+     */
+    private void moveOffset(double x, double y) {
+        deepOffset.addToX(x);
+        deepOffset.addToY(y);
+        offset.setX(deepOffset.getX().doubleValue());
+        offset.setY(deepOffset.getY().doubleValue());
+    }
+
+    /**
+     * Zooms keeping the world point under the screen
+     * position in the same place
+     *
+     * The world point is (pos / scale) + offset, so the offset
+     * has to move pos / oldScale - pos / newScale. It is done
+     * without the offset to not lose the digits of the deep zoom
+     */
+    private void zoom(Vec2dd screenPos, double factor) {
+        double oldScale = scale;
+        scale *= factor;
+        moveOffset(
+                screenPos.getX() / oldScale - screenPos.getX() / scale,
+                screenPos.getY() / oldScale - screenPos.getY() / scale
+        );
+    }
+
+    /**
+     * The method what is really used to build the frame
+     * (see FractalMath.getPrecisionMethod)
+     */
+    private FractalMath.FractalMethod getPrecisionMethod(Vec2dd fractalTopLeft, Vec2dd fractalBottomRight, double pixelSize) {
+        return FractalMath.getPrecisionMethod(mode, fractalTopLeft, fractalBottomRight, pixelSize);
+    }
+
     /**
      * Update method, called each frame
      * I does the math
      */
     public void update() {
+        RenderEvents.UpdateEvent event = new RenderEvents.UpdateEvent();
+        event.begin();
+        updateView();
+        if ( event.shouldCommit() ) {
+            event.scale = scale;
+            event.iterations = iterations;
+            event.left = offset.getX();
+            event.top = offset.getY();
+            event.right = offset.getX() + img.getWidth() / scale;
+            event.bottom = offset.getY() + img.getHeight() / scale;
+            event.pixels = (long) img.getWidth() * (long) img.getHeight();
+            event.commit();
+        }
+    }
+
+    /**
+     * The body of update
+     */
+    private void updateView() {
         if ( isQKeyHeld ) {
-            screenToWorld(mousePos, mouseWorldBeforeZoom, offset, scale);
-            scale *= 1.05;
-            screenToWorld(mousePos, mouseWorldAfterZoom, offset, scale);
-            offset.addToX(mouseWorldBeforeZoom.getX() - mouseWorldAfterZoom.getX());
-            offset.addToY(mouseWorldBeforeZoom.getY() - mouseWorldAfterZoom.getY());
+            zoom(mousePos, 1.05);
         }
 
         if ( isAKeyHeld ) {
-            screenToWorld(mousePos, mouseWorldBeforeZoom, offset, scale);
-            scale *= 0.95;
-            screenToWorld(mousePos, mouseWorldAfterZoom, offset, scale);
-            offset.addToX(mouseWorldBeforeZoom.getX() - mouseWorldAfterZoom.getX());
-            offset.addToY(mouseWorldBeforeZoom.getY() - mouseWorldAfterZoom.getY());
+            zoom(mousePos, 0.95);
         }
 
         Vec2dd pixelsTopLeft = new Vec2dd(0.0f, 0.0f);
@@ -292,43 +646,825 @@ public class Controller implements Initializable {
         screenToWorld(pixelsTopLeft, fractalTopLeft, offset, scale);
         screenToWorld(pixelsBottomRight, fractalBottomRight, offset, scale);
 
-        long startTime = System.nanoTime();
+        FractalMath.FractalMethod method = getPrecisionMethod(fractalTopLeft, fractalBottomRight, 1.0 / scale);
+        ViewState view = new ViewState(deepOffset, scale, iterations, method);
+
+        // The preview array can't change while it is being painted
+        boolean isPainting = painting != null && !painting.isDone();
+        if ( !isPainting && isZoomPreviewNeeded(view) ) {
+            buildZoomPreview(view);
+        }
+
+        if ( frame != null ) {
+            // A progressive pass of an old view isn't useful
+            if ( frameStep > 1 && !view.equals(frameView) ) {
+                frameCancelled.set(true);
+            }
+            return;
+        }
+
+        if ( isLoading ) {
+            return;
+        }
+
+        // The progressive passes use mathCal, so only with doubles.
+        // The tiles don't need them, a known place is done at once
+        boolean canBeProgressive = method != FractalMath.FractalMethod.PERTURBATION
+                && method != FractalMath.FractalMethod.DOUBLE_DOUBLE
+                && method != FractalMath.FractalMethod.TILED;
+        boolean canResume = canBeProgressive && resumeIterations;
+        if ( areChecksChanged ) {
+            areChecksChanged = false;
+            fractalView = null;
+            orbitView = null;
+        }
+
+        boolean isSameView = view.equals(fractalView);
+        if ( isSameView && fractalStep == 1 ) {
+            // Nothing has changed, the fractal array is already this view
+            return;
+        }
+
+        Vec2di shift = canBeProgressive && !isSameView ? getPixelShift(view) : null;
+
+        frameView = view;
+        frameCancelled = new AtomicBoolean();
+        frameKeepsOrbit = false;
+        FractalMath.resetPeriodicityExits();
+
+        if ( shift != null ) {
+            startShiftedFrame(shift, method, pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+        } else if ( canResume && isResumable(view) ) {
+            startResumableFrame(orbitView.getIterations(), pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+        } else if ( canBeProgressive && isSameView && fractalStep > 1 ) {
+            startProgressivePass(fractalStep / 2, fractalStep, pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+        } else if ( canBeProgressive && !isSameView && isMoving() ) {
+            startProgressivePass(PROGRESSIVE_FIRST_STEP, 0, pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+        } else {
+            frameStep = 1;
+            if ( canResume ) {
+                startResumableFrame(0, pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+            } else {
+                startFrame(method, pixelsTopLeft, pixelsBottomRight, fractalTopLeft, fractalBottomRight);
+            }
+        }
+
+        // The resumable frames don't use the chosen method
+        String methodName = frameKeepsOrbit ? "continuar iteraciones" : method.name().toLowerCase();
+        stringZoom.set(String.format("Zoom:\n%e\n%s", scale, methodName));
+        stringSection.set(String.format("Sección:\n%f arriba\n%f izquierda\n%f abajo\n%f derecha",
+                fractalTopLeft.getX(), fractalTopLeft.getY(), fractalBottomRight.getX(), fractalBottomRight.getY()));
+    }
 
-        FractalMath.buildFractal(
+    /**
+     * While the operator zooms or moves the image the frames
+     * are done progressively, a fast frame is better than a
+     * good one
+     */
+    private boolean isMoving() {
+        return isQKeyHeld || isAKeyHeld || isMouseDragging
+                || System.nanoTime() - lastScrollTime < SCROLL_MOVING_TIME;
+    }
+
+    /**
+     * The preview is only for the zooms, when the view is moved
+     * without zoom the frame is fast (see getPixelShift)
+     */
+    private boolean isZoomPreviewNeeded(ViewState view) {
+        return completedView != null
+                && !view.equals(displayedView)
+                && view.getScale() != completedView.getScale()
+                && view.getIterations() == completedView.getIterations();
+    }
+
+    /**
+     * Resamples the last frame done to the view and shows it
+     * (see FractalMath.resampleFractal)
+     */
+    private void buildZoomPreview(ViewState view) {
+        FractalMath.resampleFractal(
+                completedFractal,
+                completedView.getScale(),
+                previewFractal,
+                view.getScale(),
+                view.getOffsetX().subtract(completedView.getOffsetX()).doubleValue(),
+                view.getOffsetY().subtract(completedView.getOffsetY()).doubleValue(),
+                (int)img.getWidth(),
+                (int)img.getHeight()
+        );
+        displayedFractal = previewFractal;
+        displayedView = view;
+        fractalVersion++;
+    }
+
+    /**
+     * The pixels what the view has moved since the view of the
+     * fractal array. It is null if the fractal array isn't
+     * complete, if the zoom, the iterations or the method have
+     * changed, or if it hasn't moved a whole number of pixels
+     */
+    private Vec2di getPixelShift(ViewState view) {
+        if ( fractalView == null || fractalStep != 1
+                || view.getScale() != fractalView.getScale()
+                || view.getIterations() != fractalView.getIterations()
+                || view.getMethod() != fractalView.getMethod() ) {
+            return null;
+        }
+
+        double x = view.getOffsetX().subtract(fractalView.getOffsetX()).doubleValue() * scale;
+        double y = view.getOffsetY().subtract(fractalView.getOffsetY()).doubleValue() * scale;
+        long shiftX = Math.round(x);
+        long shiftY = Math.round(y);
+
+        if ( Math.abs(x - shiftX) > MAX_SHIFT_ERROR || Math.abs(y - shiftY) > MAX_SHIFT_ERROR ) {
+            return null;
+        }
+        if ( Math.abs(shiftX) >= img.getWidth() || Math.abs(shiftY) >= img.getHeight() ) {
+            return null;
+        }
+        return new Vec2di((int) shiftX, (int) shiftY);
+    }
+
+    /**
+     * The iterations can be continued if the fractal array is the
+     * frame of the saved z and only the iterations have grown
+     */
+    private boolean isResumable(ViewState view) {
+        return orbitView != null
+                && orbitView.equals(fractalView)
+                && fractalStep == 1
+                && view.isSamePlace(orbitView)
+                && view.getIterations() > orbitView.getIterations();
+    }
+
+    /**
+     * Starts a frame what saves the last z of the pixels. If
+     * fromIterations isn't 0 the pixels what reached that limit
+     * continue from their saved z (see ResumeMath)
+     */
+    private void startResumableFrame(int fromIterations, Vec2dd pixelsTopLeft, Vec2dd pixelsBottomRight, Vec2dd fractalTopLeft, Vec2dd fractalBottomRight) {
+        if ( orbitReal == null ) {
+            orbitReal = new double[fractal.length];
+            orbitComp = new double[fractal.length];
+        }
+        // The z are being changed, they are valid again when it is done
+        orbitView = null;
+        frameKeepsOrbit = true;
+        frameStep = 1;
+        frame = ResumeMath.buildFractal(
                 pixelsTopLeft,
                 pixelsBottomRight,
                 fractalTopLeft,
                 fractalBottomRight,
+                fromIterations,
                 iterations,
                 fractal,
                 (int)img.getWidth(),
-                mode
+                orbitReal,
+                orbitComp
         );
+    }
 
-        long endTime = System.nanoTime();
-        long duration = endTime - startTime;
+    /**
+     * Starts a frame what moves the fractal array and only
+     * calculates the new strips (see FractalMath.createFractalShifted)
+     */
+    private void startShiftedFrame(Vec2di shift, FractalMath.FractalMethod method, Vec2dd pixelsTopLeft, Vec2dd pixelsBottomRight, Vec2dd fractalTopLeft, Vec2dd fractalBottomRight) {
+        long startTime = System.nanoTime();
+        frameStep = 1;
+        frame = FractalMath.createFractalShifted(
+                shift.getX(),
+                shift.getY(),
+                pixelsTopLeft,
+                pixelsBottomRight,
+                fractalTopLeft,
+                fractalBottomRight,
+                iterations,
+                fractal,
+                method == FractalMath.FractalMethod.LANES || method == FractalMath.FractalMethod.LANES_FORK_JOIN
+        ).thenApply(v -> System.nanoTime() - startTime);
+    }
 
-        stringDuration.set(String.format("time taken:\n%.6fs", (duration / 1000000000.0f)));
-        stringZoom.set(String.format("Zoom:\n%f", scale));
-        stringSection.set(String.format("Sección:\n%f arriba\n%f izquierda\n%f abajo\n%f derecha",
-                fractalTopLeft.getX(), fractalTopLeft.getY(), fractalBottomRight.getX(), fractalBottomRight.getY()));
+    /**
+     * Starts a progressive pass (see FractalMath.createFractalProgressive)
+     */
+    private void startProgressivePass(int step, int previousStep, Vec2dd pixelsTopLeft, Vec2dd pixelsBottomRight, Vec2dd fractalTopLeft, Vec2dd fractalBottomRight) {
+        long startTime = System.nanoTime();
+        AtomicBoolean cancelled = frameCancelled;
+        frameStep = step;
+        frame = FractalMath.createFractalProgressive(
+                step,
+                previousStep,
+                pixelsTopLeft,
+                pixelsBottomRight,
+                fractalTopLeft,
+                fractalBottomRight,
+                iterations,
+                fractal,
+                cancelled::get
+        ).thenApply(v -> System.nanoTime() - startTime);
+    }
+
+    /**
+     * Starts the full frame with the method
+     */
+    private void startFrame(FractalMath.FractalMethod method, Vec2dd pixelsTopLeft, Vec2dd pixelsBottomRight, Vec2dd fractalTopLeft, Vec2dd fractalBottomRight) {
+        if ( method == FractalMath.FractalMethod.PERTURBATION ) {
+            frame = PerturbationMath.buildFractal(
+                    new Vec2dbd(deepOffset),
+                    1.0 / scale,
+                    (int)img.getWidth(),
+                    (int)img.getHeight(),
+                    iterations,
+                    fractal
+            );
+        } else if ( method == FractalMath.FractalMethod.DOUBLE_DOUBLE ) {
+            frame = DoubleDoubleMath.buildFractal(
+                    new Vec2ddd(deepOffset),
+                    1.0 / scale,
+                    (int)img.getWidth(),
+                    (int)img.getHeight(),
+                    iterations,
+                    fractal
+            );
+        } else {
+            frame = FractalMath.buildFractal(
+                    pixelsTopLeft,
+                    pixelsBottomRight,
+                    fractalTopLeft,
+                    fractalBottomRight,
+                    iterations,
+                    fractal,
+                    (int)img.getWidth(),
+                    method
+            );
+        }
     }
 
     /**
      * Render method, goes after the update method
      * and renders the screen
+     *
+     * The screen is only painted when the frame is done,
+     * so a half-written fractal is never shown. The colors are
+     * done out of this thread (see ImageBuffers), and they are
+     * shown in the next call after they are done
      */
     public void render() {
-        for ( int i = 0; i < pixels.length; i++ ) {
-            pixels[i] = ColorBuilder.buildColor(fractal[i], colorAdded, paintingMode);
+        RenderEvents.RenderEvent event = new RenderEvents.RenderEvent();
+        event.begin();
+        CompletableFuture<Rectangle2D> lastPainting = painting;
+        renderView();
+        if ( event.shouldCommit() ) {
+            event.paintingStarted = painting != null && painting != lastPainting;
+            if ( displayedView != null ) {
+                event.left = displayedView.getOffsetX().doubleValue();
+                event.top = displayedView.getOffsetY().doubleValue();
+                event.right = event.left + img.getWidth() / displayedView.getScale();
+                event.bottom = event.top + img.getHeight() / displayedView.getScale();
+            }
+            event.pixels = (long) img.getWidth() * (long) img.getHeight();
+            event.commit();
+        }
+    }
+
+    /**
+     * The body of render
+     */
+    private void renderView() {
+        if ( painting != null ) {
+            if ( !painting.isDone() ) {
+                // The arrays what are being painted can't change yet
+                return;
+            }
+            finishPainting();
+        }
+
+        if ( frame != null && frame.isDone() ) {
+            finishFrame();
+        }
+
+        if ( fractalVersion == paintedFractalVersion && colorVersion == paintedColorVersion ) {
+            return;
         }
+        paintedFractalVersion = fractalVersion;
+        paintedColorVersion = colorVersion;
 
-        img.getPixelWriter().setPixels(
-                0, 0,
-                (int)img.getWidth(), (int)img.getHeight(),
-                PixelFormat.getIntArgbInstance(),
-                pixels,
-                0, (int)img.getWidth());
+        if ( paletteColorVersion != colorVersion || paletteIterations != iterations ) {
+            palette = ColorBuilder.buildPalette(iterations, colorAdded, paintingMode);
+            paletteColorVersion = colorVersion;
+            paletteIterations = iterations;
+        }
+        painting = imageBuffers.paint(displayedFractal, palette, colorAdded, paintingMode);
+    }
+
+    /**
+     * Shows the image painted, only the changed
+     * rectangle is uploaded
+     */
+    private void finishPainting() {
+        try {
+            img = imageBuffers.swap(painting.join());
+            imageView.setImage(img);
+        } catch ( CompletionException e ) {
+            // It is called inside the animation, where a dialog can't
+            // wait, so the error is shown in the label of the time
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            stringDuration.set("Error al pintar:\n" + cause.getMessage());
+        }
+        painting = null;
+    }
+
+    /**
+     * Called when the frame is done, it keeps the view
+     * of the fractal array and shows the time taken
+     */
+    private void finishFrame() {
+        try {
+            long duration = frame.join();
+            String durationText = String.format("time taken:\n%.6fs (1/%d)\n%,d ciclos", (duration / 1000000000.0f), frameStep, FractalMath.getPeriodicityExits());
+            if ( frameView.getMethod() == FractalMath.FractalMethod.TILED ) {
+                TileCache tileCache = TileMath.getTileCache();
+                durationText += String.format("\n%d tiles %.0f MB\n%,d aciertos %,d fallos\n%,d expulsados",
+                        tileCache.size(), tileCache.getMemoryUsed() / (1024.0 * 1024.0),
+                        tileCache.getHits(), tileCache.getMisses(), tileCache.getEvictions());
+            }
+            stringDuration.set(durationText);
+        } catch ( CompletionException e ) {
+            // The fractal array is half written, the next update builds the view again.
+            // It is called inside the animation, where a dialog can't
+            // wait, so the error is shown in the label of the time
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            stringDuration.set("Error al calcular:\n" + cause.getMessage());
+            frame = null;
+            fractalView = null;
+            return;
+        }
+        frame = null;
+
+        // A cancelled pass has left the fractal half done
+        if ( frameCancelled.get() ) {
+            fractalView = null;
+            return;
+        }
+        fractalView = frameView;
+        fractalStep = frameStep;
+        if ( frameKeepsOrbit ) {
+            orbitView = frameView;
+        }
+
+        System.arraycopy(fractal, 0, completedFractal, 0, fractal.length);
+        completedView = frameView;
+        completedStep = frameStep;
+        displayedFractal = completedFractal;
+        displayedView = frameView;
+        fractalVersion++;
+    }
+
+    /**
+     * Saves the view with the edges anti-aliased (see
+     * FractalMath.createFractalAntialiased). It is done in the
+     * fork join pool and saved in the JavaFX thread when it is done
+     *
+     * It uses doubles, so the views what need more digits
+     * are saved as they are shown
+     */
+    private void saveAntialiasedImage() {
+        String directory = txtFieldSaveDirectory.getText();
+        String name = txtFieldSaveName.getText();
+        Vec2dd pixelsTopLeft = new Vec2dd(0.0, 0.0);
+        Vec2dd pixelsBottomRight = new Vec2dd(img.getWidth(), img.getHeight());
+        Vec2dd fractalTopLeft = new Vec2dd();
+        Vec2dd fractalBottomRight = new Vec2dd();
+        screenToWorld(pixelsTopLeft, fractalTopLeft, offset, scale);
+        screenToWorld(pixelsBottomRight, fractalBottomRight, offset, scale);
+
+        FractalMath.FractalMethod method = getPrecisionMethod(fractalTopLeft, fractalBottomRight, 1.0 / scale);
+        if ( method == FractalMath.FractalMethod.PERTURBATION || method == FractalMath.FractalMethod.DOUBLE_DOUBLE ) {
+            IOUtils.saveImage(img, directory, name);
+            return;
+        }
+
+        int width = (int) img.getWidth();
+        int height = (int) img.getHeight();
+        int[] antialiasedPixels = new int[width * height];
+        FractalMath.createFractalAntialiased(
+                pixelsTopLeft,
+                pixelsBottomRight,
+                fractalTopLeft,
+                fractalBottomRight,
+                iterations,
+                new int[width * height],
+                width,
+                FractalMath.ANTIALIAS_THRESHOLD,
+                FractalMath.ANTIALIAS_MAX_DEPTH,
+                ColorBuilder.buildPalette(iterations, colorAdded, paintingMode),
+                colorAdded,
+                paintingMode,
+                antialiasedPixels
+        ).whenCompleteAsync((samples, error) -> {
+            if ( error != null ) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar guardar la imagen", "Error: " + cause.getMessage());
+                return;
+            }
+            WritableImage antialiasedImage = new WritableImage(width, height);
+            antialiasedImage.getPixelWriter().setPixels(0, 0, width, height,
+                    PixelFormat.getIntArgbInstance(), antialiasedPixels, 0, width);
+            IOUtils.saveImage(antialiasedImage, directory, name);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Exports the view as a poster with the size of the text
+     * fields (see PosterExporter). The poster has the center and
+     * the width of the view, the height is the one of the size
+     */
+    private void exportPoster() {
+        String directory = txtFieldSaveDirectory.getText();
+        String name = txtFieldSaveName.getText();
+        if ( directory.equals("") || name.equals("") ) {
+            MessageUtils.showError("Directorio y nombre nulos", "Introduce donde y como se va a guardar la imagen.");
+            return;
+        }
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(txtFieldPosterWidth.getText().trim());
+            height = Integer.parseInt(txtFieldPosterHeight.getText().trim());
+        } catch ( NumberFormatException e ) {
+            MessageUtils.showError("Tamaño no válido", "Introduce el ancho y el alto del póster en píxeles.");
+            return;
+        }
+        if ( width <= 0 || height <= 0 ) {
+            MessageUtils.showError("Tamaño no válido", "El ancho y el alto del póster tienen que ser mayores que 0.");
+            return;
+        }
+
+        double pixelSize = img.getWidth() / scale / width;
+        Vec2dbd posterTopLeft = new Vec2dbd(deepOffset);
+        posterTopLeft.addToY((img.getHeight() / scale - height * pixelSize) / 2);
+        Vec2dd fractalTopLeft = posterTopLeft.toVec2dd();
+        Vec2dd fractalBottomRight = new Vec2dd(fractalTopLeft.getX() + width * pixelSize, fractalTopLeft.getY() + height * pixelSize);
+        FractalMath.FractalMethod method = getPrecisionMethod(fractalTopLeft, fractalBottomRight, pixelSize);
+
+        File file = new File(directory, name + ".png");
+        btnPoster.setDisable(true);
+        stringExport.set("Póster: 0%");
+        PosterExporter.exportPoster(
+                file,
+                width,
+                height,
+                posterTopLeft,
+                pixelSize,
+                iterations,
+                method,
+                checkBoxAntialias.isSelected(),
+                ColorBuilder.buildPalette(iterations, colorAdded, paintingMode),
+                colorAdded,
+                paintingMode,
+                checkBoxPosterIterations.isSelected() ? Paths.get(directory, name + IOUtils.ITERATIONS_EXTENSION) : null,
+                done -> Platform.runLater(() -> stringExport.set(String.format("Póster: %.0f%%", done * 100)))
+        ).whenCompleteAsync((duration, error) -> {
+            btnPoster.setDisable(false);
+            if ( error != null ) {
+                stringExport.set("");
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar exportar el póster", "Error: " + cause.getMessage());
+            } else {
+                stringExport.set(String.format("Póster: %.1fs", duration / 1000000000.0));
+                MessageUtils.showMessage("Póster guardado", "Se ha guardado el póster en: " + file.getPath());
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * The header and the pixels read by loadIterations, the pixels
+     * are null if the file can't be shown (see showIterations)
+     */
+    private static class LoadedIterations {
+
+        private final IterationFile.Header header;
+
+        private final int step;
+
+        private final int[] fractal;
+
+        LoadedIterations(IterationFile.Header header, int step, int[] fractal) {
+            this.header = header;
+            this.step = step;
+            this.fractal = fractal;
+        }
+
+    }
+
+    /**
+     * Opens a file of iterations (see IterationFile) and shows it
+     * as the current view, without calculating anything, so it
+     * can be painted with other colors
+     *
+     * A file bigger than the screen (a poster) is shown with one
+     * pixel of each step x step, only those rows are read
+     *
+     * The frame what is being built has to end before the arrays
+     * change, and a deep frame can take long, so the wait and the
+     * read are done out of the JavaFX thread. A progressive pass
+     * is cancelled, and no other frame is started until the file
+     * is shown
+     */
+    private void loadIterations() {
+        Path path = Paths.get(txtFieldSaveDirectory.getText(), txtFieldSaveName.getText() + IOUtils.ITERATIONS_EXTENSION);
+        int width = (int)img.getWidth();
+        int height = (int)img.getHeight();
+
+        isLoading = true;
+        btnLoadIterations.setDisable(true);
+        frameCancelled.set(true);
+        CompletableFuture<Long> lastFrame = frame;
+
+        CompletableFuture.supplyAsync(() -> {
+            if ( lastFrame != null ) {
+                lastFrame.exceptionally(e -> 0L).join();
+            }
+            try ( IterationFile file = IterationFile.open(path) ) {
+                IterationFile.Header header = file.getHeader();
+                if ( header.getFormula() != FractalMath.getFormula()
+                        || header.getProjection() != IterationFile.Projection.FLAT ) {
+                    return new LoadedIterations(header, 1, null);
+                }
+                int step = Math.max(1, Math.min(header.getWidth() / width, header.getHeight() / height));
+                int[] loaded = new int[width * height];
+                int[] row = new int[header.getWidth()];
+                for ( int y = 0; y < height; y++ ) {
+                    int fileY = y * step;
+                    if ( fileY < header.getHeight() ) {
+                        file.readRows(fileY, 1, row, 0);
+                    }
+                    for ( int x = 0; x < width; x++ ) {
+                        int fileX = x * step;
+                        loaded[y * width + x] = fileY < header.getHeight() && fileX < header.getWidth() ? row[fileX] : 0;
+                    }
+                }
+                return new LoadedIterations(header, step, loaded);
+            } catch ( IOException e ) {
+                throw new CompletionException(e);
+            }
+        }, runnable -> new Thread(runnable, "fractal-load").start()).whenCompleteAsync((loaded, error) -> {
+            isLoading = false;
+            btnLoadIterations.setDisable(false);
+            if ( error != null ) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar abrir las iteraciones", "Error: " + cause.getMessage());
+                return;
+            }
+            showIterations(loaded);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Shows the iterations read by loadIterations as the current view
+     */
+    private void showIterations(LoadedIterations loaded) {
+        IterationFile.Header header = loaded.header;
+        if ( header.getFormula() != FractalMath.getFormula() ) {
+            MessageUtils.showError("Fórmula distinta", "Las iteraciones son de otra fórmula del fractal.");
+            return;
+        }
+        if ( header.getProjection() != IterationFile.Projection.FLAT ) {
+            MessageUtils.showError("Mapa exponencial", "El archivo es un mapa exponencial, se usa para exportar animaciones.");
+            return;
+        }
+        int width = (int)img.getWidth();
+        int height = (int)img.getHeight();
+        int step = loaded.step;
+
+        // The arrays can't change while a paint is using them. The
+        // last frame is done, no other one has been started
+        if ( painting != null ) {
+            painting.join();
+            finishPainting();
+        }
+        if ( frame != null ) {
+            finishFrame();
+        }
+        System.arraycopy(loaded.fractal, 0, fractal, 0, fractal.length);
+
+        deepOffset = new Vec2dbd(header.getOffsetX(), header.getOffsetY());
+        offset.setX(deepOffset.getX().doubleValue());
+        offset.setY(deepOffset.getY().doubleValue());
+        scale = header.getScale() / step;
+        iterations = header.getIterations();
+        spinnerIterations.getValueFactory().setValue(iterations);
+
+        Vec2dd fractalTopLeft = new Vec2dd();
+        Vec2dd fractalBottomRight = new Vec2dd();
+        screenToWorld(new Vec2dd(0.0, 0.0), fractalTopLeft, offset, scale);
+        screenToWorld(new Vec2dd(width, height), fractalBottomRight, offset, scale);
+        ViewState view = new ViewState(deepOffset, scale, iterations, getPrecisionMethod(fractalTopLeft, fractalBottomRight, 1.0 / scale));
+
+        System.arraycopy(fractal, 0, completedFractal, 0, fractal.length);
+        completedView = view;
+        displayedFractal = completedFractal;
+        displayedView = view;
+        orbitView = null;
+        fractalStep = 1;
+        // If the file doesn't fill the screen the view is calculated
+        boolean isScreenFilled = header.getWidth() >= width && header.getHeight() >= height;
+        fractalView = isScreenFilled ? view : null;
+        completedStep = isScreenFilled ? 1 : 0;
+        fractalVersion++;
+    }
+
+    /**
+     * @return the world point in the center of the screen
+     */
+    private Vec2dbd getCenter() {
+        Vec2dbd center = new Vec2dbd(deepOffset);
+        center.addToX(img.getWidth() / 2.0 / scale);
+        center.addToY(img.getHeight() / 2.0 / scale);
+        return center;
+    }
+
+    /**
+     * Exports the zoom animation from the marked view to the
+     * current one (see ZoomAnimator). The frames have the size of
+     * the screen and the files already written are skipped
+     */
+    private void exportAnimation() {
+        String directory = txtFieldSaveDirectory.getText();
+        String name = txtFieldSaveName.getText();
+        if ( directory.equals("") || name.equals("") ) {
+            MessageUtils.showError("Directorio y nombre nulos", "Introduce donde y como se va a guardar la animación.");
+            return;
+        }
+        if ( animationStartCenter == null ) {
+            MessageUtils.showError("Sin inicio", "Marca la vista del inicio de la animación.");
+            return;
+        }
+        int frames;
+        try {
+            frames = Integer.parseInt(txtFieldFrames.getText().trim());
+        } catch ( NumberFormatException e ) {
+            frames = 0;
+        }
+        if ( frames <= 0 ) {
+            MessageUtils.showError("Fotogramas no válidos", "Introduce el número de fotogramas de la animación.");
+            return;
+        }
+
+        btnAnimation.setDisable(true);
+        stringExport.set("Animación: 0/" + frames);
+        ZoomAnimator.renderAnimation(
+                Paths.get(directory),
+                name,
+                frames,
+                (int)img.getWidth(),
+                (int)img.getHeight(),
+                animationStartCenter,
+                animationStartScale,
+                getCenter(),
+                scale,
+                ZoomAnimator.Easing.values()[Math.max(0, comboBoxEasing.getSelectionModel().getSelectedIndex())],
+                mode,
+                iterations,
+                ColorBuilder.buildPalette(iterations, colorAdded, paintingMode),
+                colorAdded,
+                paintingMode,
+                (done, total, framesPerSecond) -> Platform.runLater(() ->
+                        stringExport.set(String.format("Animación: %d/%d\n%.2f fotogramas/s", done, total, framesPerSecond)))
+        ).whenCompleteAsync((done, error) -> {
+            btnAnimation.setDisable(false);
+            if ( error != null ) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar exportar la animación", "Error: " + cause.getMessage());
+            } else {
+                MessageUtils.showMessage("Animación guardada", "Se han guardado " + done + " fotogramas en: " + directory);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * @return the file of the exponential map, next to the images
+     */
+    private Path getExpMapPath() {
+        return Paths.get(txtFieldSaveDirectory.getText(), txtFieldSaveName.getText() + "_mapa" + IOUtils.ITERATIONS_EXTENSION);
+    }
+
+    /**
+     * Calculates the exponential map (see ExpMapMath) of the zoom
+     * from the marked scale to the current one, always to the
+     * center of the screen
+     */
+    private void exportExpMap() {
+        if ( txtFieldSaveDirectory.getText().equals("") || txtFieldSaveName.getText().equals("") ) {
+            MessageUtils.showError("Directorio y nombre nulos", "Introduce donde y como se va a guardar el mapa.");
+            return;
+        }
+        if ( animationStartCenter == null || animationStartScale >= scale ) {
+            MessageUtils.showError("Sin inicio", "Marca una vista más alejada como inicio de la animación.");
+            return;
+        }
+
+        Path path = getExpMapPath();
+        CompletableFuture<Long> map;
+        try {
+            map = ExpMapMath.renderMap(
+                    path,
+                    getCenter(),
+                    (int)img.getWidth(),
+                    (int)img.getHeight(),
+                    animationStartScale,
+                    scale,
+                    iterations,
+                    done -> Platform.runLater(() -> stringExport.set(String.format("Mapa: %.0f%%", done * 100)))
+            );
+        } catch ( IllegalArgumentException e ) {
+            MessageUtils.showError("Zoom demasiado profundo", "El mapa exponencial no llega a la perturbación.");
+            return;
+        }
+
+        btnExpMap.setDisable(true);
+        stringExport.set("Mapa: 0%");
+        map.whenCompleteAsync((duration, error) -> {
+            btnExpMap.setDisable(false);
+            if ( error != null ) {
+                stringExport.set("");
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar calcular el mapa", "Error: " + cause.getMessage());
+            } else {
+                stringExport.set(String.format("Mapa: %.1fs", duration / 1000000000.0));
+                MessageUtils.showMessage("Mapa guardado", "Se ha guardado el mapa en: " + path);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Exports the zoom animation of the exponential map, from
+     * its first scale to its last one
+     */
+    private void exportAnimationFromMap() {
+        String directory = txtFieldSaveDirectory.getText();
+        String name = txtFieldSaveName.getText();
+        int frames;
+        try {
+            frames = Integer.parseInt(txtFieldFrames.getText().trim());
+        } catch ( NumberFormatException e ) {
+            frames = 0;
+        }
+        if ( frames <= 0 ) {
+            MessageUtils.showError("Fotogramas no válidos", "Introduce el número de fotogramas de la animación.");
+            return;
+        }
+
+        int width = (int)img.getWidth();
+        int height = (int)img.getHeight();
+        Path path = getExpMapPath();
+        IterationFile.Header header;
+        try ( IterationFile file = IterationFile.open(path) ) {
+            header = file.getHeader();
+        } catch ( IOException e ) {
+            MessageUtils.showError("Ha ocurrido algún error al intentar abrir el mapa", "Error: " + e.getMessage());
+            return;
+        }
+        if ( header.getProjection() != IterationFile.Projection.EXPONENTIAL_MAP ) {
+            MessageUtils.showError("Sin mapa", "El archivo no es un mapa exponencial.");
+            return;
+        }
+        int mapIterations = header.getIterations();
+
+        btnAnimationFromMap.setDisable(true);
+        stringExport.set("Animación: 0/" + frames);
+        ZoomAnimator.renderAnimationFromMap(
+                Paths.get(directory),
+                name,
+                frames,
+                width,
+                height,
+                path,
+                ExpMapMath.getStartScale(header, width, height),
+                ExpMapMath.getEndScale(header),
+                ZoomAnimator.Easing.values()[Math.max(0, comboBoxEasing.getSelectionModel().getSelectedIndex())],
+                ColorBuilder.buildPalette(mapIterations, colorAdded, paintingMode),
+                colorAdded,
+                paintingMode,
+                (done, total, framesPerSecond) -> Platform.runLater(() ->
+                        stringExport.set(String.format("Animación: %d/%d\n%.2f fotogramas/s", done, total, framesPerSecond)))
+        ).whenCompleteAsync((done, error) -> {
+            btnAnimationFromMap.setDisable(false);
+            if ( error != null ) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                MessageUtils.showError("Ha ocurrido algún error al intentar exportar la animación", "Error: " + cause.getMessage());
+            } else {
+                MessageUtils.showMessage("Animación guardada", "Se han guardado " + done + " fotogramas en: " + directory);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * @return the timer, to read the times of the frames
+     */
+    public CustomTimer getTimer() {
+        return timer;
     }
 
     private String addedColorStringBuilder(float added) {
@@ -13,9 +13,24 @@ public class CustomTimer extends AnimationTimer {
         void render();
     }
 
+    /**
+     * The time between two frames of JavaFX (60 frames per second),
+     * a longer interval has lost the frames what would fit in it
+     */
+    private static final long FRAME_PERIOD = 1000000000L / 60;
+
+    /**
+     * The pacing shown is the one of the last seconds, a second
+     * has too few frames to see the 99th percentile
+     */
+    private static final long PACING_WINDOW = 5000000000L;
+
     protected ReadOnlyStringWrapper textFps = new ReadOnlyStringWrapper(this,
             "fpsText", "Frame count: 0 Average frame interval: N/A");
 
+    protected ReadOnlyStringWrapper textPacing = new ReadOnlyStringWrapper(this,
+            "pacingText", "");
+
     protected Update updater;
 
     private Render renderer;
@@ -28,12 +43,37 @@ public class CustomTimer extends AnimationTimer {
 
     protected int frames = 0;
 
+    /**
+     * The intervals between frames and the times of update and
+     * render since the start (or the last resetStats)
+     */
+    private final FrameHistogram intervals = new FrameHistogram();
+
+    private final FrameHistogram updateTimes = new FrameHistogram();
+
+    private final FrameHistogram renderTimes = new FrameHistogram();
+
+    private volatile long droppedFrames = 0;
+
+    /**
+     * The intervals of the last PACING_WINDOW, for the text
+     */
+    private final FrameHistogram windowIntervals = new FrameHistogram();
+
+    private long windowDroppedFrames = 0;
+
+    private long windowTime = 0;
+
     @Override
     public void handle(long now) {
         if ( lastTime > 0 ) {
             long elapsedTime = now - lastTime;
             accumulatedTime += elapsedTime;
+            recordInterval(elapsedTime);
+
+            long updateStart = System.nanoTime();
             updater.update();
+            updateTimes.record(System.nanoTime() - updateStart);
         } else {
             firstTime = now;
         }
@@ -44,14 +84,81 @@ public class CustomTimer extends AnimationTimer {
             textFps.set(String.format("FPS: %,d", frames));
             frames = 0;
         }
+        if ( windowTime >= PACING_WINDOW ) {
+            windowTime = 0;
+            textPacing.set(String.format("p50 %.1f ms  p90 %.1f ms\np99 %.1f ms  máx %.1f ms\n%,d perdidos",
+                    windowIntervals.getPercentile(50), windowIntervals.getPercentile(90),
+                    windowIntervals.getPercentile(99), windowIntervals.getMax(), windowDroppedFrames));
+            windowIntervals.reset();
+            windowDroppedFrames = 0;
+        }
+
+        long renderStart = System.nanoTime();
         renderer.render();
+        renderTimes.record(System.nanoTime() - renderStart);
         frames++;
     }
 
+    /**
+     * Keeps the interval between two frames, the frames of
+     * FRAME_PERIOD what are missing in it are dropped frames
+     */
+    private void recordInterval(long elapsedTime) {
+        intervals.record(elapsedTime);
+        windowIntervals.record(elapsedTime);
+        windowTime += elapsedTime;
+
+        long missing = Math.round((double) elapsedTime / FRAME_PERIOD) - 1;
+        if ( missing > 0 ) {
+            droppedFrames += missing;
+            windowDroppedFrames += missing;
+        }
+    }
+
     public ReadOnlyStringWrapper getTextFps() {
         return textFps;
     }
 
+    public ReadOnlyStringWrapper getTextPacing() {
+        return textPacing;
+    }
+
+    /**
+     * @return the intervals between frames since the start
+     */
+    public FrameHistogram getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * @return the times of the updater since the start
+     */
+    public FrameHistogram getUpdateTimes() {
+        return updateTimes;
+    }
+
+    /**
+     * @return the times of the renderer since the start
+     */
+    public FrameHistogram getRenderTimes() {
+        return renderTimes;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Starts again the histograms and the dropped frames,
+     * to measure a part of the session
+     */
+    public void resetStats() {
+        intervals.reset();
+        updateTimes.reset();
+        renderTimes.reset();
+        droppedFrames = 0;
+    }
+
     public void setUpdater(Update updater) {
         this.updater = updater;
     }
@@ -0,0 +1,271 @@
+package sample;
+
+import points2d.Vec2dd;
+import points2d.Vec2ddd;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class contains the static methods to do the
+ * fractal with double-double numbers (see Vec2ddd)
+ *
+ * It is the step between the doubles of FractalMath and the
+ * perturbation of PerturbationMath: it is slower than doubles
+ * (each operation is about ten operations with doubles) but
+ * it has about 32 digits, so the zooms until 1e30 are clean
+ *
+ * The numbers are kept as two local doubles, high and low,
+ * because a double-double object per operation would be too
+ * much garbage for the inner loop
+ */
+public class DoubleDoubleMath {
+
+    /**
+     * Rows of the image for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    /**
+     * The rounding error of a + b, where sum is a + b
+     * rounded to double (Knuth's two-sum)
+     */
+    private static double twoSumError(double a, double b, double sum) {
+        double bVirtual = sum - a;
+        return (a - (sum - bVirtual)) + (b - bVirtual);
+    }
+
+    /**
+     * The rounding error of a * b, where product is a * b
+     * rounded to double. Math.fma rounds only once, so
+     * a * b - product is exact (it is an instruction of
+     * the CPU since Haswell, the JIT uses it)
+     */
+    private static double twoProductError(double a, double b, double product) {
+        return Math.fma(a, b, -product);
+    }
+
+    /**
+     * The double-double version of mathCal. The escape is
+     * checked with the high parts, that is enough for |z| = 2
+     */
+    public static int mathCal(double realCHi, double realCLo, double compCHi, double compCLo, int iterations) {
+        double realZHi = 0.0;
+        double realZLo = 0.0;
+        double compZHi = 0.0;
+        double compZLo = 0.0;
+
+        double p;
+        double e;
+        double s;
+
+        int n = 0;
+        double mod2 = 0.0;
+        while ( mod2 < 4.0 && n < iterations ) {
+            // real^2
+            p = realZHi * realZHi;
+            e = twoProductError(realZHi, realZHi, p) + 2 * realZHi * realZLo;
+            double real2Hi = p + e;
+            double real2Lo = e - (real2Hi - p);
+
+            // comp^2
+            p = compZHi * compZHi;
+            e = twoProductError(compZHi, compZHi, p) + 2 * compZHi * compZLo;
+            double comp2Hi = p + e;
+            double comp2Lo = e - (comp2Hi - p);
+
+            // real * comp
+            p = realZHi * compZHi;
+            e = twoProductError(realZHi, compZHi, p) + realZHi * compZLo + realZLo * compZHi;
+            double realCompHi = p + e;
+            double realCompLo = e - (realCompHi - p);
+
+            // real^2 - comp^2
+            s = real2Hi - comp2Hi;
+            e = twoSumError(real2Hi, -comp2Hi, s) + real2Lo - comp2Lo;
+            double diffHi = s + e;
+            double diffLo = e - (diffHi - s);
+
+            // real = real^2 - comp^2 + realC
+            s = diffHi + realCHi;
+            e = twoSumError(diffHi, realCHi, s) + diffLo + realCLo;
+            realZHi = s + e;
+            realZLo = e - (realZHi - s);
+
+            // comp = 2 * real * comp + compC (times 2 is exact)
+            s = 2 * realCompHi + compCHi;
+            e = twoSumError(2 * realCompHi, compCHi, s) + 2 * realCompLo + compCLo;
+            compZHi = s + e;
+            compZLo = e - (compZHi - s);
+
+            n++;
+            mod2 = realZHi * realZHi + compZHi * compZHi;
+        }
+
+        return n;
+    }
+
+    /**
+     * mathCal of the point center + (dx, dy), the sum
+     * is done with all the digits of the center
+     */
+    public static int mathCal(Vec2ddd center, double dx, double dy, int iterations) {
+        double s = center.getXHi() + dx;
+        double e = twoSumError(center.getXHi(), dx, s) + center.getXLo();
+        double realCHi = s + e;
+        double realCLo = e - (realCHi - s);
+
+        s = center.getYHi() + dy;
+        e = twoSumError(center.getYHi(), dy, s) + center.getYLo();
+        double compCHi = s + e;
+        double compCLo = e - (compCHi - s);
+
+        return mathCal(realCHi, realCLo, compCHi, compCLo, iterations);
+    }
+
+    /**
+     * Builds the pixels inside the rectangle [x0, x1) x [y0, y1),
+     * the coordinates of the pixel (x, y) are
+     * fractalTopLeft + (x, y) * pixelSize
+     *
+     * @return the iterations done
+     */
+    public static long createFractalSection(
+            int x0, int y0,
+            int x1, int y1,
+            Vec2ddd fractalTopLeft,
+            double pixelSize,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        long executedIterations = 0;
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * imgWidth;
+
+            double offset = y * pixelSize;
+            double s = fractalTopLeft.getYHi() + offset;
+            double e = twoSumError(fractalTopLeft.getYHi(), offset, s) + fractalTopLeft.getYLo();
+            double compCHi = s + e;
+            double compCLo = e - (compCHi - s);
+
+            for ( int x = x0; x < x1; x++ ) {
+                offset = x * pixelSize;
+                s = fractalTopLeft.getXHi() + offset;
+                e = twoSumError(fractalTopLeft.getXHi(), offset, s) + fractalTopLeft.getXLo();
+                double realCHi = s + e;
+                double realCLo = e - (realCHi - s);
+
+                // There isn't any check, all the pixels are iterated
+                int n = mathCal(realCHi, realCLo, compCHi, compCLo, iterations);
+                fractal[row + x] = n;
+                executedIterations += n;
+            }
+        }
+        return executedIterations;
+    }
+
+    /**
+     * The same as FractalMath.buildFractal but with the
+     * double-double coordinates of the top left pixel. The
+     * rows are done in the fork join pool
+     *
+     * @return a future completed when the last pixel is done,
+     * the value is the time taken in nanoseconds
+     */
+    public static CompletableFuture<Long> buildFractal(
+            Vec2ddd fractalTopLeft,
+            double pixelSize,
+            int imgWidth,
+            int imgHeight,
+            int iterations,
+            int[] fractal
+    ) {
+        long startTime = System.nanoTime();
+        RenderEvents.BuildEvent event = new RenderEvents.BuildEvent();
+        event.begin();
+        return createFractalDoubleDouble(fractalTopLeft, pixelSize, imgWidth, imgHeight, iterations, fractal)
+                .thenApply(executedIterations -> {
+                    long duration = System.nanoTime() - startTime;
+                    Vec2dd topLeft = fractalTopLeft.toVec2dd();
+                    RenderEvents.commitBuild(event, FractalMath.FractalMethod.DOUBLE_DOUBLE.name(),
+                            topLeft.getX(), topLeft.getY(), topLeft.getX() + imgWidth * pixelSize, topLeft.getY() + imgHeight * pixelSize,
+                            iterations, imgWidth, imgHeight, executedIterations);
+                    return duration;
+                });
+    }
+
+    /**
+     * @return a future completed when the last row is done,
+     * the value is the iterations done
+     */
+    public static CompletableFuture<Long> createFractalDoubleDouble(
+            Vec2ddd fractalTopLeft,
+            double pixelSize,
+            int imgWidth,
+            int imgHeight,
+            int iterations,
+            int[] fractal
+    ) {
+        DoubleDoubleTask task = new DoubleDoubleTask(0, imgHeight, fractalTopLeft, pixelSize, iterations, fractal, imgWidth);
+        return CompletableFuture.supplyAsync(() -> {
+            task.invoke();
+            return task.executedIterations;
+        }, FractalMath.getForkJoinPool());
+    }
+
+    /**
+     * The rows [y0, y1) of the image, cut in halves until
+     * they are ROWS_PER_TASK rows
+     */
+    private static class DoubleDoubleTask extends RecursiveAction {
+
+        private final int y0;
+
+        private final int y1;
+
+        private final Vec2ddd fractalTopLeft;
+
+        private final double pixelSize;
+
+        private final int iterations;
+
+        private final int[] fractal;
+
+        private final int imgWidth;
+
+        /**
+         * The iterations done by this task and its halves,
+         * set when the task is done
+         */
+        private long executedIterations;
+
+        private DoubleDoubleTask(int y0, int y1, Vec2ddd fractalTopLeft, double pixelSize, int iterations, int[] fractal, int imgWidth) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.fractalTopLeft = fractalTopLeft;
+            this.pixelSize = pixelSize;
+            this.iterations = iterations;
+            this.fractal = fractal;
+            this.imgWidth = imgWidth;
+        }
+
+        @Override
+        protected void compute() {
+            if ( y1 - y0 <= ROWS_PER_TASK ) {
+                RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+                event.begin();
+                executedIterations = createFractalSection(0, y0, imgWidth, y1, fractalTopLeft, pixelSize, iterations, fractal, imgWidth);
+                RenderEvents.commitTask(event, "double-double", 0, y0, imgWidth, y1, iterations, executedIterations);
+            } else {
+                int yMid = y0 + (y1 - y0) / 2;
+                DoubleDoubleTask top = new DoubleDoubleTask(y0, yMid, fractalTopLeft, pixelSize, iterations, fractal, imgWidth);
+                DoubleDoubleTask bottom = new DoubleDoubleTask(yMid, y1, fractalTopLeft, pixelSize, iterations, fractal, imgWidth);
+                invokeAll(top, bottom);
+                executedIterations = top.executedIterations + bottom.executedIterations;
+            }
+        }
+
+    }
+
+}
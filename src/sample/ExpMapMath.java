@@ -0,0 +1,355 @@
+package sample;
+
+import points2d.Vec2dbd;
+import points2d.Vec2dd;
+import points2d.Vec2ddd;
+import sample.utils.IterationFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleConsumer;
+
+/**
+ * This class contains the static methods to do a zoom
+ * animation from an exponential map
+ *
+ * Two frames of a zoom are almost the same image, only a bit
+ * bigger. An exponential map (log-polar) has all of them at once:
+ * the column is the angle around the center of the zoom and the
+ * row is the logarithm of the distance to the center, so zooming
+ * is only moving down the rows. The map is calculated once, with
+ * square pixels (a row is the same log distance as a column is
+ * angle), and every frame is built resampling it
+ *
+ * https://mathr.co.uk/blog/2010-08-31_rendering_mandelbrot_set_zoom_videos.html
+ *
+ * The map is saved as an IterationFile with the projection
+ * EXPONENTIAL_MAP, the offset is the center and the row 0 is
+ * at the distance 1 / scale
+ */
+public class ExpMapMath {
+
+    /**
+     * Pixels of a band of the map
+     */
+    private static final int BAND_PIXELS = 1 << 21;
+
+    /**
+     * Rows of the map for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    /**
+     * Rows of a frame for each task of the pool
+     */
+    private static final int FRAME_ROWS_PER_TASK = 16;
+
+    /**
+     * The pixels of a frame relative to its center, the
+     * same for all the frames of the zoom
+     */
+    public static class FrameGeometry {
+
+        private final int width;
+
+        private final int height;
+
+        /**
+         * The column of the map of each pixel
+         */
+        private final float[] columns;
+
+        /**
+         * The row of the map of each pixel, without
+         * the part of the scale of the frame
+         */
+        private final float[] rows;
+
+        private final float minRow;
+
+        private final float maxRow;
+
+        public FrameGeometry(int width, int height, int mapWidth) {
+            this.width = width;
+            this.height = height;
+            this.columns = new float[width * height];
+            this.rows = new float[width * height];
+
+            double pixelsPerRadian = mapWidth / (2 * Math.PI);
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for ( int y = 0; y < height; y++ ) {
+                // The centers of the pixels, so no one is at distance 0
+                double dy = y + 0.5 - height / 2.0;
+                for ( int x = 0; x < width; x++ ) {
+                    double dx = x + 0.5 - width / 2.0;
+                    double angle = Math.atan2(dy, dx);
+                    if ( angle < 0 ) {
+                        angle += 2 * Math.PI;
+                    }
+                    int i = y * width + x;
+                    columns[i] = (float) (angle * pixelsPerRadian);
+                    rows[i] = (float) (-Math.log(Math.hypot(dx, dy)) * pixelsPerRadian);
+                    min = Math.min(min, rows[i]);
+                    max = Math.max(max, rows[i]);
+                }
+            }
+            this.minRow = min;
+            this.maxRow = max;
+        }
+
+    }
+
+    /**
+     * @return the columns of the map for a frame, enough to
+     * have a sample per pixel at the corners of the frame
+     */
+    public static int getMapWidth(int width, int height) {
+        return (int) Math.ceil(Math.PI * Math.hypot(width, height));
+    }
+
+    /**
+     * @return the rows of the map from the distance maxRadius
+     * to minRadius
+     */
+    public static int getMapHeight(int mapWidth, double maxRadius, double minRadius) {
+        return (int) Math.ceil(Math.log(maxRadius / minRadius) * mapWidth / (2 * Math.PI)) + 1;
+    }
+
+    /**
+     * @return the scale of the first frame of the map, the
+     * one what has the corners in the row 0
+     */
+    public static double getStartScale(IterationFile.Header header, int width, int height) {
+        return header.getScale() * Math.hypot(width, height) / 2;
+    }
+
+    /**
+     * @return the scale of the last frame of the map, the one
+     * what has the center pixel in the last row
+     */
+    public static double getEndScale(IterationFile.Header header) {
+        double minRadius = Math.exp(-(header.getHeight() - 1) * 2 * Math.PI / header.getWidth()) / header.getScale();
+        return 0.5 / minRadius;
+    }
+
+    /**
+     * Calculates the map of a zoom to a file, in bands of rows
+     * done in the fork join pool. The map goes from the corners
+     * of a frame with startScale to a pixel of a frame with endScale
+     *
+     * The rows are done with doubles while the pixels are big enough
+     * (see FractalMath.getPrecisionMethod) and with double-double
+     * numbers after that
+     *
+     * @param progress called with the part of the map done (0 to 1)
+     * @return a future completed when the file is written,
+     * the value is the time taken in nanoseconds
+     */
+    public static CompletableFuture<Long> renderMap(
+            Path file,
+            Vec2dbd center,
+            int width,
+            int height,
+            double startScale,
+            double endScale,
+            int iterations,
+            DoubleConsumer progress
+    ) {
+        int mapWidth = getMapWidth(width, height);
+        double maxRadius = Math.hypot(width, height) / 2 / startScale;
+        double minRadius = 0.5 / endScale;
+        int mapHeight = getMapHeight(mapWidth, maxRadius, minRadius);
+
+        Vec2dd centerDouble = center.toVec2dd();
+        double minPixelSize = minRadius * 2 * Math.PI / mapWidth;
+        if ( FractalMath.getPrecisionMethod(FractalMath.FractalMethod.FORK_JOIN, centerDouble, centerDouble, minPixelSize)
+                == FractalMath.FractalMethod.PERTURBATION ) {
+            throw new IllegalArgumentException("The zoom is too deep for the double-double numbers");
+        }
+
+        IterationFile.Header header = new IterationFile.Header(mapWidth, mapHeight, iterations, FractalMath.getFormula(),
+                IterationFile.Projection.EXPONENTIAL_MAP, 1.0 / maxRadius, center.getX(), center.getY());
+
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.nanoTime();
+            Vec2ddd deepCenter = new Vec2ddd(center);
+            int bandRows = Math.max(1, BAND_PIXELS / mapWidth);
+            int[] band = new int[bandRows * mapWidth];
+            try ( IterationFile map = IterationFile.create(file, header) ) {
+                for ( int y0 = 0; y0 < mapHeight; y0 += bandRows ) {
+                    int rows = Math.min(bandRows, mapHeight - y0);
+                    new MapTask(y0, y0 + rows, y0, deepCenter, maxRadius, mapWidth, iterations, band).invoke();
+                    map.writeRows(y0, rows, band, 0);
+                    progress.accept((double) (y0 + rows) / mapHeight);
+                }
+            } catch ( IOException e ) {
+                throw new UncheckedIOException(e);
+            }
+            return System.nanoTime() - startTime;
+        }, FractalMath.getForkJoinPool());
+    }
+
+    /**
+     * Calculates the rows [y0, y1) of the map
+     * @param bandY0 the row of the map of the first row of the band
+     */
+    public static void createMapSection(int y0, int y1, int bandY0, Vec2ddd center, double maxRadius, int mapWidth, int iterations, int[] band) {
+        double radiansPerPixel = 2 * Math.PI / mapWidth;
+        Vec2dd centerDouble = center.toVec2dd();
+        for ( int y = y0; y < y1; y++ ) {
+            double radius = maxRadius * Math.exp(-y * radiansPerPixel);
+            double pixelSize = radius * radiansPerPixel;
+            double tolerance = FractalMath.getPeriodicityTolerance(pixelSize);
+            boolean isDeep = FractalMath.getPrecisionMethod(FractalMath.FractalMethod.FORK_JOIN, centerDouble, centerDouble, pixelSize)
+                    != FractalMath.FractalMethod.FORK_JOIN;
+            int row = (y - bandY0) * mapWidth;
+            for ( int x = 0; x < mapWidth; x++ ) {
+                double angle = x * radiansPerPixel;
+                double dx = radius * Math.cos(angle);
+                double dy = radius * Math.sin(angle);
+                band[row + x] = isDeep
+                        ? DoubleDoubleMath.mathCal(center, dx, dy, iterations)
+                        : FractalMath.mathCal(centerDouble.getX() + dx, centerDouble.getY() + dy, iterations, tolerance);
+            }
+        }
+    }
+
+    /**
+     * @return the first row and the rows of the map what a frame needs
+     */
+    public static int[] getFrameRows(IterationFile.Header header, FrameGeometry geometry, double scale) {
+        double rowOffset = getRowOffset(header, scale);
+        int first = (int) Math.floor(geometry.minRow + rowOffset);
+        int last = (int) Math.ceil(geometry.maxRow + rowOffset) + 1;
+        first = Math.max(0, Math.min(first, header.getHeight() - 1));
+        last = Math.max(first, Math.min(last, header.getHeight() - 1));
+        return new int[] {first, last - first + 1};
+    }
+
+    /**
+     * Builds a frame of the zoom with the scale from the rows of
+     * the map (see getFrameRows) with a bilinear interpolation of
+     * the colors. The parts of the frame out of the map take the
+     * nearest row
+     *
+     * @param mapRows the rows of the map from firstRow
+     */
+    public static void resampleFrame(
+            IterationFile.Header header,
+            FrameGeometry geometry,
+            double scale,
+            int[] mapRows,
+            int firstRow,
+            int rowCount,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            int[] pixels
+    ) {
+        double rowOffset = getRowOffset(header, scale) - firstRow;
+        List<ForkJoinTask<?>> bands = new ArrayList<>();
+        for ( int band = 0; band < geometry.height; band += FRAME_ROWS_PER_TASK ) {
+            int y0 = band;
+            int y1 = Math.min(band + FRAME_ROWS_PER_TASK, geometry.height);
+            bands.add(ForkJoinTask.adapt(() -> {
+                for ( int i = y0 * geometry.width; i < y1 * geometry.width; i++ ) {
+                    pixels[i] = sample(mapRows, header.getWidth(), rowCount,
+                            geometry.columns[i], (float) (geometry.rows[i] + rowOffset), palette, added, way);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(bands);
+    }
+
+    /**
+     * The row of the map of a pixel is geometry.rows + this
+     */
+    private static double getRowOffset(IterationFile.Header header, double scale) {
+        // distance = (pixel distance) / scale and row = log(maxRadius / distance) * pixels per radian
+        return Math.log(scale / header.getScale()) * header.getWidth() / (2 * Math.PI);
+    }
+
+    /**
+     * The bilinear mix of the colors of the four samples
+     * around (column, row). The columns go around
+     */
+    private static int sample(int[] mapRows, int mapWidth, int rowCount, float column, float row, int[] palette, float added, ColorBuilder.WayToRender way) {
+        row = Math.max(0, Math.min(row, rowCount - 1));
+        int x0 = (int) column;
+        int y0 = (int) row;
+        float fx = column - x0;
+        float fy = row - y0;
+        int x1 = x0 + 1 == mapWidth ? 0 : x0 + 1;
+        int y1 = Math.min(y0 + 1, rowCount - 1);
+        x0 = Math.min(x0, mapWidth - 1);
+
+        int c00 = ColorBuilder.getColor(mapRows[y0 * mapWidth + x0], palette, added, way);
+        int c10 = ColorBuilder.getColor(mapRows[y0 * mapWidth + x1], palette, added, way);
+        int c01 = ColorBuilder.getColor(mapRows[y1 * mapWidth + x0], palette, added, way);
+        int c11 = ColorBuilder.getColor(mapRows[y1 * mapWidth + x1], palette, added, way);
+
+        int color = 0xff << 24;
+        for ( int shift = 0; shift <= 16; shift += 8 ) {
+            float top = ((c00 >> shift) & 0xff) * (1 - fx) + ((c10 >> shift) & 0xff) * fx;
+            float bottom = ((c01 >> shift) & 0xff) * (1 - fx) + ((c11 >> shift) & 0xff) * fx;
+            color |= ((int) (top * (1 - fy) + bottom * fy + 0.5f)) << shift;
+        }
+        return color;
+    }
+
+    /**
+     * The rows [y0, y1) of the map, cut in halves until
+     * they are ROWS_PER_TASK rows
+     */
+    private static class MapTask extends RecursiveAction {
+
+        private final int y0;
+
+        private final int y1;
+
+        private final int bandY0;
+
+        private final Vec2ddd center;
+
+        private final double maxRadius;
+
+        private final int mapWidth;
+
+        private final int iterations;
+
+        private final int[] band;
+
+        private MapTask(int y0, int y1, int bandY0, Vec2ddd center, double maxRadius, int mapWidth, int iterations, int[] band) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.bandY0 = bandY0;
+            this.center = center;
+            this.maxRadius = maxRadius;
+            this.mapWidth = mapWidth;
+            this.iterations = iterations;
+            this.band = band;
+        }
+
+        @Override
+        protected void compute() {
+            if ( y1 - y0 <= ROWS_PER_TASK ) {
+                createMapSection(y0, y1, bandY0, center, maxRadius, mapWidth, iterations, band);
+            } else {
+                int yMid = y0 + (y1 - y0) / 2;
+                invokeAll(
+                        new MapTask(y0, yMid, bandY0, center, maxRadius, mapWidth, iterations, band),
+                        new MapTask(yMid, y1, bandY0, center, maxRadius, mapWidth, iterations, band)
+                );
+            }
+        }
+
+    }
+
+}
@@ -1,13 +1,18 @@
 package sample;
 
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-import javafx.util.Duration;
+import points2d.Vec2dbd;
 import points2d.Vec2dd;
-import points2d.Vec2df;
+import points2d.Vec2ddd;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
 
 /**
  * This class contains the static methods
@@ -25,19 +30,95 @@ public class FractalMath {
      */
     enum FractalMethod {
         NAIVE,
-        POOL_THREAD
+        POOL_THREAD,
+        FORK_JOIN,
+        MARIANI_SILVER,
+        LANES,
+        LANES_FORK_JOIN,
+        PERTURBATION,
+        DOUBLE_DOUBLE,
+        TILED
     }
 
     /**
-     * Needed service to work with threads. It isn't essential
-     * but in the original example what I follow is used
+     * If it is true, the points inside the main cardioid and
+     * the period-2 bulb aren't iterated (see isInsideMainBulbs)
      */
-    private static ScheduledService<Boolean> scheduledService;
+    private static volatile boolean cardioidCheck = true;
 
     /**
-     * The pool of threads
+     * If it is true, the orbits what fall in a cycle stop
+     * iterating (see mathCalPeriodic)
      */
-    private static ThreadPoolExecutor executor;
+    private static volatile boolean periodicityCheck = true;
+
+    /**
+     * Max distance between two points of the orbit to say
+     * that the orbit is in a cycle. When the zoom is deep
+     * it is smaller (see getPeriodicityTolerance)
+     */
+    private static final double PERIODICITY_TOLERANCE = 1e-10;
+
+    /**
+     * The tolerance is at most this part of a pixel, two points
+     * of the orbit this close can't make a different color
+     */
+    private static final double PERIODICITY_PIXEL_FRACTION = 1e-3;
+
+    /**
+     * Number of pixels what have stopped because of the
+     * periodicity check. Many threads add to it, so it is
+     * a LongAdder instead of a long
+     */
+    private static final LongAdder periodicityExits = new LongAdder();
+
+    /**
+     * A pixel must be at least this number of ulps (the distance
+     * between two consecutive doubles) to be done with doubles
+     */
+    private static final double MIN_PIXEL_ULPS = 8.0;
+
+    /**
+     * The same for the double-double numbers, they have
+     * 53 more bits than a double
+     */
+    private static final double MIN_PIXEL_ULPS_DOUBLE_DOUBLE = MIN_PIXEL_ULPS / Math.pow(2, 53);
+
+    /**
+     * The difference in iterations between two samples to take
+     * them as an edge in the anti-aliased images (see
+     * createFractalAntialiased)
+     */
+    public static final int ANTIALIAS_THRESHOLD = 1;
+
+    /**
+     * Times an edge pixel is cut in four for the anti-aliased
+     * images, 2 is at most 16 samples (as a 4 x 4 supersampling)
+     */
+    public static final int ANTIALIAS_MAX_DEPTH = 2;
+
+    /**
+     * The pool of threads. It is created once and lives for the
+     * whole application, the threads are daemons so they don't
+     * keep the application alive when the window is closed
+     */
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    /**
+     * The work-stealing pool. As the executor above it lives
+     * for the whole application, so the worker threads are
+     * created once and reused by every frame
+     */
+    private static final ForkJoinPool forkJoinPool = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("fractal-worker-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false
+    );
 
     /**
      * This is the math what is needed to calculate
@@ -56,6 +137,32 @@ public class FractalMath {
      * go ahead
      */
     public static int mathCal(double realC, double compC, int iterations) {
+        return mathCal(realC, compC, iterations, PERIODICITY_TOLERANCE);
+    }
+
+    /**
+     * The same as before, with the tolerance of the periodicity
+     * check of the pixel size (see getPeriodicityTolerance)
+     */
+    public static int mathCal(double realC, double compC, int iterations, double tolerance) {
+        return getValue(mathCalCounted(realC, compC, iterations, tolerance), iterations);
+    }
+
+    /**
+     * The same as mathCal, but the points stopped before the
+     * iterations (inside the bulbs or in a cycle) return
+     * -1 - the iterations done, so the iterations really done
+     * can be counted (see getValue and getIterationsDone)
+     */
+    static int mathCalCounted(double realC, double compC, int iterations, double tolerance) {
+        if ( cardioidCheck && isInsideMainBulbs(realC, compC) ) {
+            return -1;
+        }
+
+        if ( periodicityCheck ) {
+            return mathCalPeriodic(realC, compC, iterations, tolerance);
+        }
+
         double realZ = 0.0;
         double compZ = 0.0;
 
@@ -87,13 +194,268 @@ public class FractalMath {
         return n;
     }
 
+    /**
+     * The same as mathCal but with the Brent's cycle detection
+     *
+     * The points inside the set end in a cycle: after some
+     * iterations z goes back to the same values again and again.
+     * A point of the orbit is saved and compared with the next
+     * ones, if z is (almost) the same the point never escapes and
+     * it is stopped (see mathCalCounted). The saved point is changed
+     * every time the number of compared iterations is a power of
+     * two, so any period is found
+     *
+     * https://en.wikipedia.org/wiki/Cycle_detection#Brent's_algorithm
+     */
+    private static int mathCalPeriodic(double realC, double compC, int iterations, double tolerance) {
+        double realZ = 0.0;
+        double compZ = 0.0;
+
+        double realZ2;
+        double compZ2;
+
+        double mod2 = 0;
+
+        double realCheck = 0.0;
+        double compCheck = 0.0;
+        int checkPeriod = 1;
+        int checkSteps = 0;
+
+        int n = 0;
+        while ( mod2 < 4.0 && n < iterations ) {
+
+            for ( int i = 0; i < N; i++ ) {
+                realZ2 = realZ * realZ - compZ * compZ;
+                compZ2 = 2 * realZ * compZ;
+
+                realZ = realZ2;
+                compZ = compZ2;
+            }
+
+            realZ += realC;
+            compZ += compC;
+
+            n++;
+            mod2 = (realZ * realZ + compZ * compZ);
+
+            if ( Math.abs(realZ - realCheck) < tolerance
+                    && Math.abs(compZ - compCheck) < tolerance ) {
+                periodicityExits.increment();
+                return -1 - n;
+            }
+
+            if ( ++checkSteps == checkPeriod ) {
+                checkSteps = 0;
+                checkPeriod <<= 1;
+                realCheck = realZ;
+                compCheck = compZ;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * The same as mathCal but it can start from a saved point of
+     * the orbit (see ResumeMath). The orbit starts at the iteration
+     * n with the z saved in realZs[i], compZs[i], or at z = 0 if n
+     * is 0, and the last z is saved back. The points what never
+     * escape (inside the bulbs or in a cycle) are saved as NaN,
+     * they take all the iterations without iterating again
+     *
+     * @return the n of the pixel, or -1 - the iterations done in
+     * this call if the point never escapes (as mathCalCounted)
+     */
+    public static int mathCalResumable(double realC, double compC, int n, int iterations, double tolerance, double[] realZs, double[] compZs, int i) {
+        double realZ = 0.0;
+        double compZ = 0.0;
+        int start = n;
+
+        if ( n == 0 ) {
+            if ( cardioidCheck && isInsideMainBulbs(realC, compC) ) {
+                realZs[i] = Double.NaN;
+                return -1;
+            }
+        } else {
+            realZ = realZs[i];
+            compZ = compZs[i];
+            if ( Double.isNaN(realZ) ) {
+                return -1;
+            }
+        }
+
+        double realZ2;
+        double compZ2;
+
+        double mod2 = (realZ * realZ + compZ * compZ);
+
+        double realCheck = realZ;
+        double compCheck = compZ;
+        int checkPeriod = 1;
+        int checkSteps = 0;
+
+        while ( mod2 < 4.0 && n < iterations ) {
+
+            for ( int j = 0; j < N; j++ ) {
+                realZ2 = realZ * realZ - compZ * compZ;
+                compZ2 = 2 * realZ * compZ;
+
+                realZ = realZ2;
+                compZ = compZ2;
+            }
+
+            realZ += realC;
+            compZ += compC;
+
+            n++;
+            mod2 = (realZ * realZ + compZ * compZ);
+
+            if ( periodicityCheck ) {
+                if ( Math.abs(realZ - realCheck) < tolerance
+                        && Math.abs(compZ - compCheck) < tolerance ) {
+                    periodicityExits.increment();
+                    realZs[i] = Double.NaN;
+                    return -1 - (n - start);
+                }
+
+                if ( ++checkSteps == checkPeriod ) {
+                    checkSteps = 0;
+                    checkPeriod <<= 1;
+                    realCheck = realZ;
+                    compCheck = compZ;
+                }
+            }
+        }
+
+        realZs[i] = realZ;
+        compZs[i] = compZ;
+        return n;
+    }
+
+    /**
+     * The two biggest parts of the set, the main cardioid and
+     * the circle at its left (period-2 bulb), can be known without
+     * iterating. These points never escape, so they are the
+     * ones what take all the iterations
+     *
+     * https://en.wikipedia.org/wiki/Plotting_algorithms_for_the_Mandelbrot_set#Cardioid_/_bulb_checking
+     *
+     * It is only valid for z = z * z + c
+     */
+    public static boolean isInsideMainBulbs(double realC, double compC) {
+        if ( N != 1 ) {
+            return false;
+        }
+
+        double compC2 = compC * compC;
+
+        double realQ = realC - 0.25;
+        double q = realQ * realQ + compC2;
+        if ( q * (q + realQ) <= 0.25 * compC2 ) {
+            return true;
+        }
+
+        double realBulb = realC + 1.0;
+        return realBulb * realBulb + compC2 <= 0.0625;
+    }
+
+    /**
+     * The method what is really used to build a frame
+     *
+     * When the size of a pixel is too small for a double, the
+     * neighbour pixels get the same coordinates and the image
+     * is made of blocks. Then the double methods are changed
+     * by the double-double one, and when even that isn't enough,
+     * by the perturbation
+     *
+     * @param mode the method chosen
+     */
+    public static FractalMethod getPrecisionMethod(FractalMethod mode, Vec2dd fractalTopLeft, Vec2dd fractalBottomRight, double pixelSize) {
+        double magnitude = Math.max(
+                Math.max(Math.abs(fractalTopLeft.getX()), Math.abs(fractalTopLeft.getY())),
+                Math.max(Math.abs(fractalBottomRight.getX()), Math.abs(fractalBottomRight.getY()))
+        );
+        double ulp = Math.ulp(magnitude);
+
+        if ( mode == FractalMethod.PERTURBATION || pixelSize < ulp * MIN_PIXEL_ULPS_DOUBLE_DOUBLE ) {
+            return FractalMethod.PERTURBATION;
+        }
+        if ( mode == FractalMethod.DOUBLE_DOUBLE || pixelSize < ulp * MIN_PIXEL_ULPS ) {
+            return FractalMethod.DOUBLE_DOUBLE;
+        }
+        return mode;
+    }
+
+    /**
+     * @return the times z is square in each iteration, the
+     * tiles of other formula aren't valid (see TileKey)
+     */
+    public static int getFormula() {
+        return N;
+    }
+
+    public static boolean isCardioidCheck() {
+        return cardioidCheck;
+    }
+
+    public static void setCardioidCheck(boolean cardioidCheck) {
+        FractalMath.cardioidCheck = cardioidCheck;
+    }
+
+    public static boolean isPeriodicityCheck() {
+        return periodicityCheck;
+    }
+
+    public static void setPeriodicityCheck(boolean periodicityCheck) {
+        FractalMath.periodicityCheck = periodicityCheck;
+    }
+
+    /**
+     * @return the number of pixels stopped by the periodicity
+     * check since the last reset
+     */
+    public static long getPeriodicityExits() {
+        return periodicityExits.sum();
+    }
+
+    public static void resetPeriodicityExits() {
+        periodicityExits.reset();
+    }
+
+    /**
+     * @return the value of a pixel from the result of mathCalCounted
+     */
+    static int getValue(int counted, int iterations) {
+        return counted < 0 ? iterations : counted;
+    }
+
+    /**
+     * @return the iterations done from the result of mathCalCounted
+     */
+    static int getIterationsDone(int counted) {
+        return counted < 0 ? -1 - counted : counted;
+    }
+
+    /**
+     * With a fixed tolerance, when the pixels are smaller than it
+     * the orbits what only pass near a cycle (the ones of the
+     * border) are stopped too and the detail is lost, so the
+     * tolerance goes down with the pixel size
+     *
+     * @return the tolerance of the periodicity check for pixels
+     * of this size (in world units)
+     */
+    public static double getPeriodicityTolerance(double pixelSize) {
+        return Math.min(PERIODICITY_TOLERANCE, Math.abs(pixelSize) * PERIODICITY_PIXEL_FRACTION);
+    }
+
     /**
      * It is the same as before but with different inputs
      */
     public static int naiveCal(double x, double y, double xScale, double yScale, double fTop, double fLeft, int iterations) {
         double realC = x * xScale + fTop;
         double compC = y * yScale + fLeft;
-        return mathCal(realC, compC, iterations);
+        return mathCal(realC, compC, iterations, getPeriodicityTolerance(xScale));
     }
 
     /**
@@ -103,8 +465,10 @@ public class FractalMath {
      *
      * Also, to store the data, is needed the array of the
      * fractal and the image width to set up all the pixels
+     *
+     * @return the iterations done
      */
-    public static void createFractalBasic(
+    public static long createFractalBasic(
             Vec2dd pixelsTopLeft,
             Vec2dd pixelsBottomRight,
             Vec2dd fractalTopLeft,
@@ -116,46 +480,406 @@ public class FractalMath {
         double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
         double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
 
+        double tolerance = getPeriodicityTolerance(xScale);
+        long iterationsDone = 0;
         for ( double y = pixelsTopLeft.getY(); y < pixelsBottomRight.getY(); y++ ) {
             for ( double x = pixelsTopLeft.getX(); x < pixelsBottomRight.getX(); x++ ) {
-                fractal[(int)y * imgWidth + (int)x] = FractalMath.naiveCal(x, y, xScale, yScale, fractalTopLeft.getX(), fractalTopLeft.getY(), iterations);
+                int counted = mathCalCounted(x * xScale + fractalTopLeft.getX(), y * yScale + fractalTopLeft.getY(), iterations, tolerance);
+                fractal[(int)y * imgWidth + (int)x] = getValue(counted, iterations);
+                iterationsDone += getIterationsDone(counted);
             }
         }
+        return iterationsDone;
     }
 
     /**
-     * Needed method for the service
+     * Builds the pixels inside the rectangle [x0, x1) x [y0, y1)
+     *
+     * Unlike createFractalBasic, the world coordinates are the ones
+     * of the pixel (0, 0) of the whole image and the size of a pixel,
+     * so any piece of the image can be calculated on its own and
+     * all the pieces match
+     *
+     * @return the iterations done
      */
-    public static void setScheduleService() {
-        if ( scheduledService == null ) {
-            scheduledService = new ScheduledService<Boolean>() {
-                @Override
-                protected Task<Boolean> createTask() {
-                    return new Task<Boolean>() {
-                        @Override
-                        protected Boolean call() {
-                            //Platform.runLater(() -> lblStatus.setText(executor.getCompletedTaskCount() + " of " + executor.getTaskCount() + " tasks finished"));
-                            return executor.isTerminated();
-                        }
-                    };
-                }
-            };
+    public static long createFractalSection(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        double tolerance = getPeriodicityTolerance(xScale);
+        long iterationsDone = 0;
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * imgWidth;
+            double compC = y * yScale + fractalTop;
+            for ( int x = x0; x < x1; x++ ) {
+                int counted = mathCalCounted(x * xScale + fractalLeft, compC, iterations, tolerance);
+                fractal[row + x] = getValue(counted, iterations);
+                iterationsDone += getIterationsDone(counted);
+            }
+        }
+        return iterationsDone;
+    }
 
-            scheduledService.setDelay(Duration.millis(500));
-            scheduledService.setPeriod(Duration.seconds(1));
-            scheduledService.setOnSucceeded(e -> {
-                if (scheduledService.getValue()) {
-                    scheduledService.cancel();
-                }
-            });
+    /**
+     * The work-stealing version of the threads method
+     *
+     * The image is halved again and again until the pieces are
+     * small tiles (see FractalTask). Every worker takes tiles from
+     * its own queue and, when it runs out of them, steals from the
+     * others, so the cores keep working until the whole frame is
+     * done even if the set is only in a part of the image
+     *
+     * If lanes is true each tile is built with LaneMath
+     *
+     * @return a future completed when the last tile is done,
+     * the value is the iterations done
+     */
+    public static CompletableFuture<Long> createFractalForkJoin(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            boolean lanes
+    ) {
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+
+        FractalTask task = new FractalTask(
+                (int) pixelsTopLeft.getX(), (int) pixelsTopLeft.getY(),
+                (int) pixelsBottomRight.getX(), (int) pixelsBottomRight.getY(),
+                xScale, yScale,
+                fractalLeft, fractalTop,
+                iterations,
+                fractal,
+                imgWidth,
+                lanes
+        );
+        return CompletableFuture.supplyAsync(() -> {
+            task.invoke();
+            return task.getExecutedIterations();
+        }, forkJoinPool);
+    }
+
+    /**
+     * Builds an anti-aliased image for the exports. The fractal
+     * is done with one sample per pixel (as createFractalForkJoin)
+     * and only the pixels in an edge take more samples, with
+     * random positions inside the pixel (see AntialiasTask)
+     *
+     * The result is the colors, the mean of the samples of
+     * each pixel, written in pixels
+     *
+     * @param threshold the difference in iterations between two
+     *                  samples to take them as an edge
+     * @param maxDepth times a pixel can be cut in four, the
+     *                 max samples of a pixel are 4^maxDepth
+     * @return a future completed when the last pixel is done,
+     * the value is the number of extra samples
+     */
+    public static CompletableFuture<Long> createFractalAntialiased(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            int threshold,
+            int maxDepth,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            int[] pixels
+    ) {
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+        int imgHeight = (int) pixelsBottomRight.getY();
+
+        return CompletableFuture.supplyAsync(() -> {
+            new FractalTask(
+                    0, 0,
+                    imgWidth, imgHeight,
+                    xScale, yScale,
+                    fractalLeft, fractalTop,
+                    iterations,
+                    fractal,
+                    imgWidth,
+                    false
+            ).invoke();
+            return new AntialiasTask(
+                    0, imgHeight,
+                    xScale, yScale,
+                    fractalLeft, fractalTop,
+                    iterations,
+                    fractal,
+                    imgWidth, imgHeight,
+                    threshold, maxDepth,
+                    palette, added, way,
+                    pixels
+            ).invoke();
+        }, forkJoinPool);
+    }
+
+    /**
+     * The lanes version of createFractalBasic, in only one thread
+     *
+     * @return the iterations done
+     */
+    public static long createFractalLanes(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+
+        return LaneMath.createFractalSectionLanes(
+                (int) pixelsTopLeft.getX(), (int) pixelsTopLeft.getY(),
+                (int) pixelsBottomRight.getX(), (int) pixelsBottomRight.getY(),
+                xScale, yScale,
+                fractalLeft, fractalTop,
+                iterations,
+                fractal,
+                imgWidth
+        );
+    }
+
+    /**
+     * The Mariani-Silver method (see MarianiSilverTask)
+     *
+     * Big areas inside the set only need their border, what
+     * is a huge save with a lot of iterations
+     *
+     * @return a future completed when the last rectangle is done,
+     * the value is the iterations done
+     */
+    public static CompletableFuture<Long> createFractalMarianiSilver(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+
+        MarianiSilverTask task = new MarianiSilverTask(
+                (int) pixelsTopLeft.getX(), (int) pixelsTopLeft.getY(),
+                (int) pixelsBottomRight.getX(), (int) pixelsBottomRight.getY(),
+                xScale, yScale,
+                fractalLeft, fractalTop,
+                iterations,
+                fractal,
+                imgWidth
+        );
+        return CompletableFuture.supplyAsync(() -> {
+            task.invoke();
+            return task.getExecutedIterations();
+        }, forkJoinPool);
+    }
+
+    /**
+     * One pass of the progressive rendering (see ProgressiveTask):
+     * one pixel of each step x step block is calculated and fills
+     * the block. The pixels of the previous pass are reused
+     *
+     * @param previousStep the step of the previous pass over the same
+     *                     fractal, or 0 if it is the first one
+     * @param isCancelled  checked before each row, when it is true the
+     *                     pass ends and the fractal is half done
+     * @return a future completed when the pass is done (or cancelled)
+     */
+    public static CompletableFuture<Void> createFractalProgressive(
+            int step,
+            int previousStep,
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            BooleanSupplier isCancelled
+    ) {
+        int imgWidth = (int) (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        int imgHeight = (int) (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / imgWidth;
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / imgHeight;
+
+        ProgressiveTask task = new ProgressiveTask(
+                0, (imgHeight + step - 1) / step,
+                step,
+                previousStep,
+                xScale, yScale,
+                fractalTopLeft.getX(), fractalTopLeft.getY(),
+                iterations,
+                fractal,
+                imgWidth,
+                imgHeight,
+                isCancelled
+        );
+        return CompletableFuture.runAsync(task::invoke, forkJoinPool);
+    }
+
+    /**
+     * Moves the pixels of the fractal array: the new pixel (x, y)
+     * is the old pixel (x + shiftX, y + shiftY). The pixels what
+     * come from outside the image keep old values, they have to
+     * be calculated again (see createFractalShifted)
+     *
+     * The rows are copied in the order what doesn't overwrite
+     * a row before it is copied
+     */
+    public static void shiftFractal(int[] fractal, int imgWidth, int imgHeight, int shiftX, int shiftY) {
+        int srcX = Math.max(shiftX, 0);
+        int dstX = Math.max(-shiftX, 0);
+        int length = imgWidth - Math.abs(shiftX);
+
+        if ( shiftY >= 0 ) {
+            for ( int y = 0; y < imgHeight - shiftY; y++ ) {
+                System.arraycopy(fractal, (y + shiftY) * imgWidth + srcX, fractal, y * imgWidth + dstX, length);
+            }
+        } else {
+            for ( int y = imgHeight - 1; y >= -shiftY; y-- ) {
+                System.arraycopy(fractal, (y + shiftY) * imgWidth + srcX, fractal, y * imgWidth + dstX, length);
+            }
+        }
+    }
+
+    /**
+     * When the view has moved a whole number of pixels (and the
+     * zoom is the same), most of the pixels are already done.
+     * They are moved and only the strips what appear in the sides
+     * of the image are calculated
+     *
+     * @return a future completed when the strips are done
+     */
+    public static CompletableFuture<Void> createFractalShifted(
+            int shiftX,
+            int shiftY,
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            boolean lanes
+    ) {
+        int imgWidth = (int) (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        int imgHeight = (int) (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / imgWidth;
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / imgHeight;
+        double fractalLeft = fractalTopLeft.getX();
+        double fractalTop = fractalTopLeft.getY();
+
+        // The new columns (all the rows) and the new rows (without the new columns)
+        int columnsX0 = shiftX >= 0 ? imgWidth - shiftX : 0;
+        int columnsX1 = shiftX >= 0 ? imgWidth : -shiftX;
+        int rowsX0 = shiftX >= 0 ? 0 : -shiftX;
+        int rowsX1 = shiftX >= 0 ? imgWidth - shiftX : imgWidth;
+        int rowsY0 = shiftY >= 0 ? imgHeight - shiftY : 0;
+        int rowsY1 = shiftY >= 0 ? imgHeight : -shiftY;
+
+        return CompletableFuture.runAsync(() -> {
+            shiftFractal(fractal, imgWidth, imgHeight, shiftX, shiftY);
+            FractalTask.invokeAll(
+                    new FractalTask(columnsX0, 0, columnsX1, imgHeight, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth, lanes),
+                    new FractalTask(rowsX0, rowsY0, rowsX1, rowsY1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth, lanes)
+            );
+        }, forkJoinPool);
+    }
+
+    /**
+     * Builds a fractal array for a view from the array of
+     * other view, taking the nearest pixel. It doesn't do any
+     * math of the fractal, so it is very fast, but the pixels
+     * are bigger when the new view is a zoom in
+     *
+     * The pixels of the new view outside the old one take the
+     * value of the nearest border pixel
+     *
+     * @param offsetX world position of the new view minus the old one
+     * @param offsetY world position of the new view minus the old one
+     */
+    public static void resampleFractal(
+            int[] src,
+            double srcScale,
+            int[] dst,
+            double dstScale,
+            double offsetX,
+            double offsetY,
+            int imgWidth,
+            int imgHeight
+    ) {
+        double ratio = srcScale / dstScale;
+        double srcX0 = offsetX * srcScale;
+        double srcY0 = offsetY * srcScale;
+
+        int[] columns = new int[imgWidth];
+        for ( int x = 0; x < imgWidth; x++ ) {
+            columns[x] = (int) Math.min(Math.max(Math.floor(srcX0 + x * ratio), 0), imgWidth - 1);
+        }
+
+        for ( int y = 0; y < imgHeight; y++ ) {
+            int srcY = (int) Math.min(Math.max(Math.floor(srcY0 + y * ratio), 0), imgHeight - 1);
+            int srcRow = srcY * imgWidth;
+            int dstRow = y * imgWidth;
+            for ( int x = 0; x < imgWidth; x++ ) {
+                dst[dstRow + x] = src[srcRow + columns[x]];
+            }
         }
     }
 
     /**
-     * The fastest method I have been able to implement
-     * It has some render bugs, but it works pretty well
+     * The other classes what do math (as PerturbationMath)
+     * use the same pool, so the cores aren't shared between
+     * two pools
      */
-    public static void createFractalThreads(
+    static ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return (ThreadPoolExecutor) Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "fractal-pool-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The image is cut in vertical sections, one for each
+     * thread of the pool. The last section takes the pixels
+     * left by the integer division
+     *
+     * @return a future completed when the last section is done,
+     * the value is the iterations done
+     */
+    public static CompletableFuture<Long> createFractalThreads(
             Vec2dd pixelsTopLeft,
             Vec2dd pixelsBottomRight,
             Vec2dd fractalTopLeft,
@@ -164,26 +888,48 @@ public class FractalMath {
             int[] fractal,
             int imgWidth
     ) {
-        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        int numThreads = executor.getMaximumPoolSize() - 1;
-        int sectionWidth = (int) ((pixelsBottomRight.getX() - pixelsTopLeft.getX()) / numThreads);
-        double fractalWidth = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (double) numThreads;
-        for (int i = 0; i < numThreads; i++ ) {
-            Vec2dd pTopLeft = new Vec2dd(pixelsTopLeft.getX() + sectionWidth * (i), pixelsTopLeft.getY());
-            Vec2dd pBottomRight = new Vec2dd(pixelsTopLeft.getX() + sectionWidth * (i + 1), pixelsBottomRight.getY());
-            Vec2dd fTopLeft = new Vec2dd(fractalTopLeft.getX(), fractalTopLeft.getY()); // fractalTopLeft.getX() + fractalWidth * (i)
-            Vec2dd fBottomRight = new Vec2dd(fractalTopLeft.getX() + fractalWidth, fractalBottomRight.getY()); // fractalTopLeft.getX() + fractalWidth * (i + 1)
-            executor.execute(() -> createFractalBasic(pTopLeft, pBottomRight, fTopLeft, fBottomRight, iterations, fractal, imgWidth));
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+
+        int left = (int) pixelsTopLeft.getX();
+        int right = (int) pixelsBottomRight.getX();
+        int top = (int) pixelsTopLeft.getY();
+        int bottom = (int) pixelsBottomRight.getY();
+
+        int numThreads = executor.getMaximumPoolSize();
+        int sectionWidth = (right - left) / numThreads;
+        CompletableFuture<?>[] sections = new CompletableFuture<?>[numThreads];
+        // Each section writes only its own count
+        long[] sectionIterations = new long[numThreads];
+        for ( int i = 0; i < numThreads; i++ ) {
+            int section = i;
+            int x0 = left + sectionWidth * i;
+            int x1 = i == numThreads - 1 ? right : x0 + sectionWidth;
+            sections[i] = CompletableFuture.runAsync(() -> {
+                RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+                event.begin();
+                sectionIterations[section] = createFractalSection(x0, top, x1, bottom, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+                RenderEvents.commitTask(event, "pool-thread", x0, top, x1, bottom, iterations, sectionIterations[section]);
+            }, executor);
         }
-        executor.shutdown();
-        scheduledService.restart();
+        return CompletableFuture.allOf(sections).thenApply(v -> Arrays.stream(sectionIterations).sum());
     }
 
     /**
      * To reduce the code, this method contains all the methods
      * to build the fractal
+     *
+     * The methods with threads don't wait for the threads, so
+     * this method returns a future what is completed when the
+     * last pixel of the frame is written. The value is the time
+     * taken since the call, in nanoseconds
+     *
+     * The coordinates are doubles, so PERTURBATION and DOUBLE_DOUBLE
+     * aren't valid here, they are built by the method below
      */
-    public static void buildFractal(
+    public static CompletableFuture<Long> buildFractal(
             Vec2dd pixelsTopLeft,
             Vec2dd pixelsBottomRight,
             Vec2dd fractalTopLeft,
@@ -193,9 +939,13 @@ public class FractalMath {
             int imgWidth,
             FractalMethod method
     ) {
+        long startTime = System.nanoTime();
+        RenderEvents.BuildEvent event = new RenderEvents.BuildEvent();
+        event.begin();
+        CompletableFuture<Long> frame;
         switch ( method ) {
             case NAIVE:
-                FractalMath.createFractalBasic(
+                frame = CompletableFuture.completedFuture(FractalMath.createFractalBasic(
                         pixelsTopLeft,
                         pixelsBottomRight,
                         fractalTopLeft,
@@ -203,11 +953,33 @@ public class FractalMath {
                         iterations,
                         fractal,
                         imgWidth
-                );
+                ));
                 break;
             case POOL_THREAD:
-                FractalMath.setScheduleService();
-                FractalMath.createFractalThreads(
+                frame = FractalMath.createFractalThreads(
+                        pixelsTopLeft,
+                        pixelsBottomRight,
+                        fractalTopLeft,
+                        fractalBottomRight,
+                        iterations,
+                        fractal,
+                        imgWidth
+                );
+                break;
+            case FORK_JOIN:
+                frame = FractalMath.createFractalForkJoin(
+                        pixelsTopLeft,
+                        pixelsBottomRight,
+                        fractalTopLeft,
+                        fractalBottomRight,
+                        iterations,
+                        fractal,
+                        imgWidth,
+                        false
+                );
+                break;
+            case LANES:
+                frame = CompletableFuture.completedFuture(FractalMath.createFractalLanes(
                         pixelsTopLeft,
                         pixelsBottomRight,
                         fractalTopLeft,
@@ -215,9 +987,85 @@ public class FractalMath {
                         iterations,
                         fractal,
                         imgWidth
+                ));
+                break;
+            case LANES_FORK_JOIN:
+                frame = FractalMath.createFractalForkJoin(
+                        pixelsTopLeft,
+                        pixelsBottomRight,
+                        fractalTopLeft,
+                        fractalBottomRight,
+                        iterations,
+                        fractal,
+                        imgWidth,
+                        true
                 );
                 break;
+            case MARIANI_SILVER:
+                frame = FractalMath.createFractalMarianiSilver(
+                        pixelsTopLeft,
+                        pixelsBottomRight,
+                        fractalTopLeft,
+                        fractalBottomRight,
+                        iterations,
+                        fractal,
+                        imgWidth
+                );
+                break;
+            case TILED:
+                frame = TileMath.createFractalTiled(
+                        pixelsTopLeft,
+                        pixelsBottomRight,
+                        fractalTopLeft,
+                        fractalBottomRight,
+                        iterations,
+                        fractal,
+                        imgWidth
+                );
+                break;
+            default:
+                throw new IllegalArgumentException("The method " + method + " needs the high precision coordinates");
+        }
+        return frame.thenApply(executedIterations -> {
+            long duration = System.nanoTime() - startTime;
+            RenderEvents.commitBuild(event, method.name(),
+                    fractalTopLeft.getX(), fractalTopLeft.getY(), fractalBottomRight.getX(), fractalBottomRight.getY(),
+                    iterations, imgWidth, (int) (pixelsBottomRight.getY() - pixelsTopLeft.getY()), executedIterations);
+            return duration;
+        });
+    }
+
+    /**
+     * The same as above but with the high precision coordinates
+     * of the pixel (0, 0) and the size of a pixel, so it works
+     * for any zoom. The method must be the one of getPrecisionMethod
+     */
+    public static CompletableFuture<Long> buildFractal(
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int imgWidth,
+            int imgHeight,
+            int iterations,
+            int[] fractal,
+            FractalMethod method
+    ) {
+        if ( method == FractalMethod.PERTURBATION ) {
+            return PerturbationMath.buildFractal(fractalTopLeft, pixelSize, imgWidth, imgHeight, iterations, fractal);
+        }
+        if ( method == FractalMethod.DOUBLE_DOUBLE ) {
+            return DoubleDoubleMath.buildFractal(new Vec2ddd(fractalTopLeft), pixelSize, imgWidth, imgHeight, iterations, fractal);
         }
+        Vec2dd topLeft = fractalTopLeft.toVec2dd();
+        return buildFractal(
+                new Vec2dd(0.0, 0.0),
+                new Vec2dd(imgWidth, imgHeight),
+                topLeft,
+                new Vec2dd(topLeft.getX() + imgWidth * pixelSize, topLeft.getY() + imgHeight * pixelSize),
+                iterations,
+                fractal,
+                imgWidth,
+                method
+        );
     }
 
 }
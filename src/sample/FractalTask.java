@@ -0,0 +1,121 @@
+package sample;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A piece of the image to build in the fork join pool
+ *
+ * If the piece is bigger than a tile, it is cut in two halves
+ * by the longest side and both halves are forked, so the idle
+ * workers can steal them. When it is small enough the pixels
+ * are calculated directly
+ */
+class FractalTask extends RecursiveAction {
+
+    /**
+     * Max number of pixels of a tile (64 x 64). Small enough to
+     * have a lot of tiles per core in a 1280 x 720 image, big
+     * enough to not waste the time splitting
+     */
+    static final int TILE_AREA = 64 * 64;
+
+    private final int x0;
+
+    private final int y0;
+
+    private final int x1;
+
+    private final int y1;
+
+    private final double xScale;
+
+    private final double yScale;
+
+    private final double fractalLeft;
+
+    private final double fractalTop;
+
+    private final int iterations;
+
+    private final int[] fractal;
+
+    private final int imgWidth;
+
+    /**
+     * If it is true the tiles are built with LaneMath
+     */
+    private final boolean lanes;
+
+    /**
+     * The iterations done by this task and its halves,
+     * set when the task is done
+     */
+    private long executedIterations;
+
+    FractalTask(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            boolean lanes
+    ) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.xScale = xScale;
+        this.yScale = yScale;
+        this.fractalLeft = fractalLeft;
+        this.fractalTop = fractalTop;
+        this.iterations = iterations;
+        this.fractal = fractal;
+        this.imgWidth = imgWidth;
+        this.lanes = lanes;
+    }
+
+    @Override
+    protected void compute() {
+        int width = x1 - x0;
+        int height = y1 - y0;
+
+        if ( width * height <= TILE_AREA ) {
+            RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+            event.begin();
+            if ( lanes ) {
+                executedIterations = LaneMath.createFractalSectionLanes(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+            } else {
+                executedIterations = FractalMath.createFractalSection(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+            }
+            RenderEvents.commitTask(event, lanes ? "lanes-fork-join" : "fork-join", x0, y0, x1, y1, iterations, executedIterations);
+            return;
+        }
+
+        FractalTask first;
+        FractalTask second;
+        if ( width >= height ) {
+            int xMid = x0 + width / 2;
+            first = split(x0, y0, xMid, y1);
+            second = split(xMid, y0, x1, y1);
+        } else {
+            int yMid = y0 + height / 2;
+            first = split(x0, y0, x1, yMid);
+            second = split(x0, yMid, x1, y1);
+        }
+        invokeAll(first, second);
+        executedIterations = first.executedIterations + second.executedIterations;
+    }
+
+    long getExecutedIterations() {
+        return executedIterations;
+    }
+
+    private FractalTask split(int x0, int y0, int x1, int y1) {
+        return new FractalTask(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth, lanes);
+    }
+
+}
@@ -0,0 +1,130 @@
+package sample;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A histogram of times, as the one of HdrHistogram but much
+ * smaller: the times are kept in microseconds in buckets what
+ * grow with the value, each power of 2 has SUB_BUCKETS buckets,
+ * so any percentile has an error less than 1 / SUB_BUCKETS (1.6%)
+ *
+ * https://github.com/HdrHistogram/HdrHistogram
+ *
+ * The array of counts is created once, recording a value is only
+ * an increment, so it can be done each frame without garbage. The
+ * methods are synchronized because it is written in the JavaFX
+ * thread and it can be read from others (a log, for example)
+ */
+public class FrameHistogram {
+
+    /**
+     * Buckets of each power of 2, the values until 2 * SUB_BUCKETS
+     * microseconds have a bucket each one
+     */
+    private static final int SUB_BUCKETS = 64;
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * The longest time kept, the longer ones are kept as this.
+     * 2^26 microseconds are about 67 seconds
+     */
+    private static final long MAX_VALUE = (1L << 26) - 1;
+
+    private final long[] counts = new long[getIndex(MAX_VALUE) + 1];
+
+    private long totalCount = 0;
+
+    private long maxValue = 0;
+
+    private long totalValue = 0;
+
+    /**
+     * Adds a time, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        long micros = Math.max(0, Math.min(nanos / 1000, MAX_VALUE));
+        counts[getIndex(micros)]++;
+        totalCount++;
+        totalValue += micros;
+        maxValue = Math.max(maxValue, micros);
+    }
+
+    /**
+     * @return the time (in milliseconds) what is greater than
+     * or equal to the percentage of the times, 0 if it is empty
+     */
+    public synchronized double getPercentile(double percentage) {
+        if ( totalCount == 0 ) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentage / 100.0 * totalCount));
+        long seen = 0;
+        for ( int i = 0; i < counts.length; i++ ) {
+            seen += counts[i];
+            if ( seen >= rank ) {
+                // The top of the bucket, but never more than the max seen
+                return Math.min(getHighestValue(i), maxValue) / 1000.0;
+            }
+        }
+        return maxValue / 1000.0;
+    }
+
+    /**
+     * @return the longest time, in milliseconds
+     */
+    public synchronized double getMax() {
+        return maxValue / 1000.0;
+    }
+
+    /**
+     * @return the average time, in milliseconds
+     */
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0.0 : (double) totalValue / totalCount / 1000.0;
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+        totalValue = 0;
+    }
+
+    /**
+     * The bucket of a value: the values below 2 * SUB_BUCKETS have
+     * their own one, the rest are shifted until they are in
+     * [SUB_BUCKETS, 2 * SUB_BUCKETS)
+     */
+    private static int getIndex(long micros) {
+        if ( micros < 2 * SUB_BUCKETS ) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((micros >> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return the highest value of the bucket
+     */
+    private static long getHighestValue(int index) {
+        if ( index < 2 * SUB_BUCKETS ) {
+            return index;
+        }
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "count=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                totalCount, getMean(), getPercentile(50), getPercentile(90), getPercentile(99), getMax());
+    }
+
+}
@@ -0,0 +1,177 @@
+package sample;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Two images what share their memory with JavaFX (PixelBuffer),
+ * one is shown (front) and the other one is painted (back)
+ *
+ * The colors are written in the buffer of the back image by the
+ * fork join pool, out of the JavaFX thread. When they are done
+ * the images are swapped and JavaFX only uploads the rectangle
+ * what has changed, there is no copy of the whole frame as with
+ * PixelWriter.setPixels
+ *
+ * The back image isn't shown, so nobody reads its buffer while
+ * it is being painted. Each buffer remembers what it has, so the
+ * changed rectangle is the one of its own last colors
+ *
+ * PixelBuffer is in JavaFX since the version 13
+ */
+public class ImageBuffers {
+
+    /**
+     * Rows of the image for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 16;
+
+    private final int width;
+
+    private final int height;
+
+    private final IntBuffer[] buffers = new IntBuffer[2];
+
+    private final List<PixelBuffer<IntBuffer>> pixelBuffers = new ArrayList<>(2);
+
+    private final WritableImage[] images = new WritableImage[2];
+
+    private int front = 0;
+
+    public ImageBuffers(int width, int height) {
+        this.width = width;
+        this.height = height;
+        for ( int i = 0; i < 2; i++ ) {
+            buffers[i] = IntBuffer.allocate(width * height);
+            // PixelBuffer only takes premultiplied colors, the alpha is always 255 so they are the same
+            pixelBuffers.add(new PixelBuffer<>(width, height, buffers[i], PixelFormat.getIntArgbPreInstance()));
+            images[i] = new WritableImage(pixelBuffers.get(i));
+        }
+    }
+
+    /**
+     * @return the image what is shown
+     */
+    public WritableImage getFrontImage() {
+        return images[front];
+    }
+
+    /**
+     * Paints the fractal in the back image with the palette
+     * (see ColorBuilder.getColor). It must not be called
+     * again until the future is done and swap is called
+     *
+     * @return a future completed when the back image is painted,
+     * the value is the rectangle what has changed, or null if nothing
+     */
+    public CompletableFuture<Rectangle2D> paint(int[] fractal, int[] palette, float added, ColorBuilder.WayToRender way) {
+        int[] pixels = buffers[1 - front].array();
+        return CompletableFuture.supplyAsync(() -> paint(fractal, pixels, palette, added, way), FractalMath.getForkJoinPool());
+    }
+
+    /**
+     * Shows the back image, JavaFX uploads the rectangle what has
+     * changed. It must be called in the JavaFX thread
+     *
+     * The images are always swapped: the back image can have the
+     * same colors as two paints ago while the front one shows other
+     * colors. The rectangle is the one of the back image against its
+     * own last colors, because each image has its own copy in the
+     * screen, so with nothing changed there is nothing to upload
+     *
+     * @return the image to show
+     */
+    public WritableImage swap(Rectangle2D dirty) {
+        front = 1 - front;
+        if ( dirty == null ) {
+            return images[front];
+        }
+        RenderEvents.UploadEvent event = new RenderEvents.UploadEvent();
+        event.begin();
+        pixelBuffers.get(front).updateBuffer(pixelBuffer -> dirty);
+        if ( event.shouldCommit() ) {
+            event.x = (int) dirty.getMinX();
+            event.y = (int) dirty.getMinY();
+            event.width = (int) dirty.getWidth();
+            event.height = (int) dirty.getHeight();
+            event.commit();
+        }
+        return images[front];
+    }
+
+    /**
+     * The body of paint, in the fork join pool. Each band of
+     * rows keeps the bounds of its changed pixels as
+     * {minX, minY, maxX, maxY}, and they are joined at the end
+     */
+    private Rectangle2D paint(int[] fractal, int[] pixels, int[] palette, float added, ColorBuilder.WayToRender way) {
+        RenderEvents.ColorEvent event = new RenderEvents.ColorEvent();
+        event.begin();
+        List<ForkJoinTask<int[]>> bands = new ArrayList<>();
+        for ( int band = 0; band < height; band += ROWS_PER_TASK ) {
+            int y0 = band;
+            int y1 = Math.min(band + ROWS_PER_TASK, height);
+            bands.add(ForkJoinTask.adapt(() -> paintBand(fractal, pixels, palette, added, way, y0, y1)));
+        }
+        ForkJoinTask.invokeAll(bands);
+
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for ( ForkJoinTask<int[]> band : bands ) {
+            int[] bounds = band.join();
+            if ( bounds != null ) {
+                minX = Math.min(minX, bounds[0]);
+                minY = Math.min(minY, bounds[1]);
+                maxX = Math.max(maxX, bounds[2]);
+                maxY = Math.max(maxY, bounds[3]);
+            }
+        }
+        if ( event.shouldCommit() ) {
+            event.pixels = (long) width * height;
+            event.changedPixels = maxX < 0 ? 0 : (long) (maxX - minX + 1) * (maxY - minY + 1);
+            event.commit();
+        }
+        if ( maxX < 0 ) {
+            return null;
+        }
+        return new Rectangle2D(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * @return the bounds of the changed pixels of the rows
+     * [y0, y1), or null if none has changed
+     */
+    private int[] paintBand(int[] fractal, int[] pixels, int[] palette, float added, ColorBuilder.WayToRender way, int y0, int y1) {
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * width;
+            for ( int x = 0; x < width; x++ ) {
+                int color = ColorBuilder.getColor(fractal[row + x], palette, added, way);
+                if ( pixels[row + x] != color ) {
+                    pixels[row + x] = color;
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    if ( minY > y ) {
+                        minY = y;
+                    }
+                    maxY = y;
+                }
+            }
+        }
+        return maxX < 0 ? null : new int[] {minX, minY, maxX, maxY};
+    }
+
+}
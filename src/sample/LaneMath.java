@@ -0,0 +1,273 @@
+package sample;
+
+/**
+ * This class contains the lane version of the fractal math
+ *
+ * Several pixels of the same row are iterated together, step by
+ * step. With the jdk.incubator.vector module (see VectorLaneMath,
+ * in src-vector) the lanes are the lanes of a DoubleVector and the
+ * CPU runs them with SIMD instructions. Without it (the module is
+ * still incubating and it needs --add-modules in the compiler and
+ * in the runtime) the lanes are SCALAR_LANES local variables: the
+ * orbits of the lanes don't depend on each other, so the CPU can
+ * run their multiplications at the same time instead of waiting for
+ * the result of the previous one, what it has to do with a single
+ * orbit in mathCal
+ *
+ * In the scalar lanes, when the pixel of a lane escapes (or reaches
+ * the iterations) the lane is retired: its value is written and the
+ * lane takes the next pixel of the row, so all the lanes keep
+ * working until the row is done
+ */
+public class LaneMath {
+
+    /**
+     * A kernel of the lanes, to choose between the scalar lanes
+     * and VectorLaneMath when the class is loaded
+     */
+    interface SectionKernel {
+
+        /**
+         * @return the pixels iterated at the same time
+         */
+        int getLanes();
+
+        /**
+         * @see LaneMath#createFractalSectionLanes
+         */
+        long createFractalSection(
+                int x0, int y0,
+                int x1, int y1,
+                double xScale,
+                double yScale,
+                double fractalLeft,
+                double fractalTop,
+                int iterations,
+                int[] fractal,
+                int imgWidth
+        );
+    }
+
+    /**
+     * The number of pixels iterated at the same time by the
+     * scalar lanes. The iteration loop is written by hand for
+     * this number
+     */
+    private static final int SCALAR_LANES = 4;
+
+    /**
+     * The n of a lane without pixel. It never reaches the
+     * iterations and its c (0, 0) never escapes, so an empty
+     * lane never stops the loop
+     */
+    private static final int EMPTY_LANE = Integer.MIN_VALUE;
+
+    /**
+     * The scalar lanes, used without the Vector API
+     */
+    private static final SectionKernel SCALAR_KERNEL = new SectionKernel() {
+        @Override
+        public int getLanes() {
+            return SCALAR_LANES;
+        }
+
+        @Override
+        public long createFractalSection(
+                int x0, int y0,
+                int x1, int y1,
+                double xScale,
+                double yScale,
+                double fractalLeft,
+                double fractalTop,
+                int iterations,
+                int[] fractal,
+                int imgWidth
+        ) {
+            return createFractalSectionScalar(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+        }
+    };
+
+    /**
+     * The kernel used, VectorLaneMath if it can be loaded
+     */
+    private static final SectionKernel KERNEL = loadKernel();
+
+    /**
+     * VectorLaneMath is only loaded when the jdk.incubator.vector
+     * module is in the runtime, and it can be missing when the
+     * application is compiled without src-vector
+     *
+     * @return the vector kernel, or the scalar lanes
+     */
+    private static SectionKernel loadKernel() {
+        if ( ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() ) {
+            try {
+                return (SectionKernel) Class.forName("sample.VectorLaneMath").getDeclaredConstructor().newInstance();
+            } catch ( ReflectiveOperationException | LinkageError ignored ) {
+                // Not compiled, use the scalar lanes
+            }
+        }
+        return SCALAR_KERNEL;
+    }
+
+    /**
+     * @return true if the lanes are the ones of the Vector API
+     */
+    public static boolean isVectorKernel() {
+        return KERNEL != SCALAR_KERNEL;
+    }
+
+    /**
+     * @return the pixels iterated at the same time
+     */
+    public static int getLanes() {
+        return KERNEL.getLanes();
+    }
+
+    /**
+     * The same as FractalMath.createFractalSection but with
+     * the lanes. The cardioid check is done when a pixel enters
+     * a lane, the periodicity check isn't done
+     *
+     * @return the iterations done
+     */
+    public static long createFractalSectionLanes(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        return KERNEL.createFractalSection(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+    }
+
+    /**
+     * The lanes without the Vector API
+     *
+     * @return the iterations done
+     */
+    private static long createFractalSectionScalar(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        // The lanes are in local variables while iterating, these
+        // arrays are only used to retire and refill them
+        double[] realC = new double[SCALAR_LANES];
+        double[] compC = new double[SCALAR_LANES];
+        double[] realZ = new double[SCALAR_LANES];
+        double[] compZ = new double[SCALAR_LANES];
+        int[] n = new int[SCALAR_LANES];
+        int[] index = new int[SCALAR_LANES];
+
+        boolean cardioidCheck = FractalMath.isCardioidCheck();
+        long executedIterations = 0;
+
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * imgWidth;
+            double compCRow = y * yScale + fractalTop;
+
+            for ( int l = 0; l < SCALAR_LANES; l++ ) {
+                n[l] = EMPTY_LANE;
+            }
+
+            int nextX = x0;
+            while ( true ) {
+                // Retire the finished lanes and refill them with the next pixels of the row
+                int activeLanes = 0;
+                for ( int l = 0; l < SCALAR_LANES; l++ ) {
+                    if ( n[l] != EMPTY_LANE && (realZ[l] * realZ[l] + compZ[l] * compZ[l] >= 4.0 || n[l] >= iterations) ) {
+                        fractal[index[l]] = n[l];
+                        executedIterations += n[l];
+                        n[l] = EMPTY_LANE;
+                    }
+                    while ( n[l] == EMPTY_LANE && nextX < x1 ) {
+                        double realCx = nextX * xScale + fractalLeft;
+                        if ( cardioidCheck && FractalMath.isInsideMainBulbs(realCx, compCRow) ) {
+                            fractal[row + nextX] = iterations;
+                        } else {
+                            realC[l] = realCx;
+                            compC[l] = compCRow;
+                            n[l] = 0;
+                            index[l] = row + nextX;
+                        }
+                        nextX++;
+                    }
+                    if ( n[l] == EMPTY_LANE ) {
+                        realC[l] = 0.0;
+                        compC[l] = 0.0;
+                        realZ[l] = 0.0;
+                        compZ[l] = 0.0;
+                    } else {
+                        activeLanes++;
+                        if ( n[l] == 0 ) {
+                            realZ[l] = 0.0;
+                            compZ[l] = 0.0;
+                        }
+                    }
+                }
+
+                if ( activeLanes == 0 ) {
+                    break;
+                }
+
+                double cr0 = realC[0], ci0 = compC[0], zr0 = realZ[0], zi0 = compZ[0];
+                double cr1 = realC[1], ci1 = compC[1], zr1 = realZ[1], zi1 = compZ[1];
+                double cr2 = realC[2], ci2 = compC[2], zr2 = realZ[2], zi2 = compZ[2];
+                double cr3 = realC[3], ci3 = compC[3], zr3 = realZ[3], zi3 = compZ[3];
+                int n0 = n[0], n1 = n[1], n2 = n[2], n3 = n[3];
+
+                // z = z * z + c in the four lanes until one of them finishes.
+                // A lane can be finished before the first iteration (when
+                // the iterations are 0), so the check goes first
+                while ( true ) {
+                    boolean isLaneDone = (zr0 * zr0 + zi0 * zi0 >= 4.0) | (n0 >= iterations)
+                            | (zr1 * zr1 + zi1 * zi1 >= 4.0) | (n1 >= iterations)
+                            | (zr2 * zr2 + zi2 * zi2 >= 4.0) | (n2 >= iterations)
+                            | (zr3 * zr3 + zi3 * zi3 >= 4.0) | (n3 >= iterations);
+                    if ( isLaneDone ) {
+                        break;
+                    }
+
+                    double t0 = zr0 * zr0 - zi0 * zi0 + cr0;
+                    double t1 = zr1 * zr1 - zi1 * zi1 + cr1;
+                    double t2 = zr2 * zr2 - zi2 * zi2 + cr2;
+                    double t3 = zr3 * zr3 - zi3 * zi3 + cr3;
+                    zi0 = 2 * zr0 * zi0 + ci0;
+                    zi1 = 2 * zr1 * zi1 + ci1;
+                    zi2 = 2 * zr2 * zi2 + ci2;
+                    zi3 = 2 * zr3 * zi3 + ci3;
+                    zr0 = t0;
+                    zr1 = t1;
+                    zr2 = t2;
+                    zr3 = t3;
+                    n0++;
+                    n1++;
+                    n2++;
+                    n3++;
+                }
+
+                realZ[0] = zr0; compZ[0] = zi0;
+                realZ[1] = zr1; compZ[1] = zi1;
+                realZ[2] = zr2; compZ[2] = zi2;
+                realZ[3] = zr3; compZ[3] = zi3;
+                n[0] = n[0] == EMPTY_LANE ? EMPTY_LANE : n0;
+                n[1] = n[1] == EMPTY_LANE ? EMPTY_LANE : n1;
+                n[2] = n[2] == EMPTY_LANE ? EMPTY_LANE : n2;
+                n[3] = n[3] == EMPTY_LANE ? EMPTY_LANE : n3;
+            }
+        }
+        return executedIterations;
+    }
+
+}
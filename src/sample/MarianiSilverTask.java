@@ -0,0 +1,159 @@
+package sample;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A rectangle of the image to build with the Mariani-Silver
+ * algorithm in the fork join pool
+ *
+ * Only the border of the rectangle is calculated. The set is
+ * connected, so if all the pixels of the border have the same
+ * number of iterations, all the pixels inside have it too and
+ * the rectangle is filled without any math. If not, the inside
+ * of the rectangle is cut in two halves and each half does the
+ * same (in parallel)
+ */
+class MarianiSilverTask extends RecursiveAction {
+
+    /**
+     * Under this number of pixels (16 x 16) checking the border
+     * doesn't save enough, so the pixels are calculated directly
+     */
+    static final int MIN_AREA = 16 * 16;
+
+    private final int x0;
+
+    private final int y0;
+
+    private final int x1;
+
+    private final int y1;
+
+    private final double xScale;
+
+    private final double yScale;
+
+    /**
+     * The tolerance of the periodicity check for the pixel size
+     */
+    private final double tolerance;
+
+    private final double fractalLeft;
+
+    private final double fractalTop;
+
+    private final int iterations;
+
+    private final int[] fractal;
+
+    private final int imgWidth;
+
+    /**
+     * The iterations done by this task (its border and its
+     * pieces), set when the task is done. A filled inside adds
+     * nothing
+     */
+    private long executedIterations;
+
+    MarianiSilverTask(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.xScale = xScale;
+        this.yScale = yScale;
+        this.tolerance = FractalMath.getPeriodicityTolerance(xScale);
+        this.fractalLeft = fractalLeft;
+        this.fractalTop = fractalTop;
+        this.iterations = iterations;
+        this.fractal = fractal;
+        this.imgWidth = imgWidth;
+    }
+
+    @Override
+    protected void compute() {
+        int width = x1 - x0;
+        int height = y1 - y0;
+
+        if ( width <= 0 || height <= 0 ) {
+            return;
+        }
+
+        if ( width * height <= MIN_AREA || width <= 2 || height <= 2 ) {
+            RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+            event.begin();
+            executedIterations = FractalMath.createFractalSection(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+            RenderEvents.commitTask(event, "mariani-silver", x0, y0, x1, y1, iterations, executedIterations);
+            return;
+        }
+
+        int border = calculate(x0, y0);
+        boolean isSameBorder = true;
+        for ( int x = x0 + 1; x < x1; x++ ) {
+            isSameBorder &= calculate(x, y0) == border;
+            isSameBorder &= calculate(x, y1 - 1) == border;
+        }
+        isSameBorder &= calculate(x0, y1 - 1) == border;
+        for ( int y = y0 + 1; y < y1 - 1; y++ ) {
+            isSameBorder &= calculate(x0, y) == border;
+            isSameBorder &= calculate(x1 - 1, y) == border;
+        }
+
+        // The inside of the rectangle, without the border
+        int inX0 = x0 + 1;
+        int inY0 = y0 + 1;
+        int inX1 = x1 - 1;
+        int inY1 = y1 - 1;
+
+        if ( isSameBorder ) {
+            for ( int y = inY0; y < inY1; y++ ) {
+                Arrays.fill(fractal, y * imgWidth + inX0, y * imgWidth + inX1, border);
+            }
+        } else {
+            MarianiSilverTask first;
+            MarianiSilverTask second;
+            if ( inX1 - inX0 >= inY1 - inY0 ) {
+                int xMid = inX0 + (inX1 - inX0) / 2;
+                first = split(inX0, inY0, xMid, inY1);
+                second = split(xMid, inY0, inX1, inY1);
+            } else {
+                int yMid = inY0 + (inY1 - inY0) / 2;
+                first = split(inX0, inY0, inX1, yMid);
+                second = split(inX0, yMid, inX1, inY1);
+            }
+            invokeAll(first, second);
+            executedIterations += first.executedIterations + second.executedIterations;
+        }
+    }
+
+    long getExecutedIterations() {
+        return executedIterations;
+    }
+
+    /**
+     * Calculates one pixel, stores it in the fractal and returns it
+     */
+    private int calculate(int x, int y) {
+        int counted = FractalMath.mathCalCounted(x * xScale + fractalLeft, y * yScale + fractalTop, iterations, tolerance);
+        int n = FractalMath.getValue(counted, iterations);
+        executedIterations += FractalMath.getIterationsDone(counted);
+        fractal[y * imgWidth + x] = n;
+        return n;
+    }
+
+    private MarianiSilverTask split(int x0, int y0, int x1, int y1) {
+        return new MarianiSilverTask(x0, y0, x1, y1, xScale, yScale, fractalLeft, fractalTop, iterations, fractal, imgWidth);
+    }
+
+}
@@ -0,0 +1,379 @@
+package sample;
+
+import points2d.Vec2dbd;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class contains the static methods to do the
+ * fractal with very deep zooms
+ *
+ * A double only has about 16 digits, so when the zoom is
+ * bigger than 1e13 all the pixels of a row have the same
+ * coordinates and the image is made of blocks. Doing all
+ * the pixels with BigDecimal works but it is extremely slow.
+ *
+ * The perturbation theory solves it: only one point, the
+ * reference, is iterated with BigDecimal. The rest of pixels
+ * are iterated as the (small) difference with the reference,
+ * and that difference fits in a double:
+ *
+ * Z = reference, z = Z + d, c = C + dc
+ * z' = z * z + c  ->  d' = 2 * Z * d + d * d + dc
+ *
+ * https://en.wikipedia.org/wiki/Plotting_algorithms_for_the_Mandelbrot_set#Perturbation_theory_and_series_approximation
+ *
+ * Sometimes the difference loses all its digits (a glitch).
+ * Those pixels are detected with the Pauldelbrot criterion and
+ * done again with a new reference picked between them
+ */
+public class PerturbationMath {
+
+    /**
+     * If |Z + d|^2 < GLITCH_TOLERANCE * |Z|^2 the pixel is a glitch
+     */
+    private static final double GLITCH_TOLERANCE = 1e-6;
+
+    /**
+     * Max number of references for a frame, the glitches left
+     * after the last one keep the value they have reached
+     */
+    private static final int MAX_REFERENCES = 16;
+
+    /**
+     * The value of the pixels not calculated yet
+     */
+    private static final int PENDING = -1;
+
+    /**
+     * Rows of the image for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    /**
+     * The orbit of the reference rounded to doubles
+     */
+    private static class ReferenceOrbit {
+
+        private final double[] real;
+
+        private final double[] comp;
+
+        /**
+         * |Z|^2 * GLITCH_TOLERANCE, to not multiply it per pixel
+         */
+        private final double[] glitchMag2;
+
+        /**
+         * Number of points of the orbit, the last one
+         * is the one what escapes (or the last iteration)
+         */
+        private final int length;
+
+        private ReferenceOrbit(double[] real, double[] comp, double[] glitchMag2, int length) {
+            this.real = real;
+            this.comp = comp;
+            this.glitchMag2 = glitchMag2;
+            this.length = length;
+        }
+
+    }
+
+    /**
+     * The precision for the reference orbit: the digits of
+     * the size of a pixel and 20 more of margin
+     */
+    public static MathContext getMathContext(double pixelSize) {
+        int digits = (int) Math.ceil(-Math.log10(pixelSize)) + 20;
+        return new MathContext(Math.max(digits, 20));
+    }
+
+    /**
+     * The same as FractalMath.buildFractal but with the high
+     * precision coordinates of the top left pixel
+     *
+     * @return a future completed when the last pixel is done,
+     * the value is the time taken in nanoseconds
+     */
+    public static CompletableFuture<Long> buildFractal(
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int imgWidth,
+            int imgHeight,
+            int iterations,
+            int[] fractal
+    ) {
+        long startTime = System.nanoTime();
+        RenderEvents.BuildEvent event = new RenderEvents.BuildEvent();
+        event.begin();
+        return CompletableFuture
+                .supplyAsync(() -> createFractalPerturbation(fractalTopLeft, pixelSize, imgWidth, imgHeight, iterations, fractal),
+                        FractalMath.getForkJoinPool())
+                .thenApply(executedIterations -> {
+                    long duration = System.nanoTime() - startTime;
+                    double left = fractalTopLeft.getX().doubleValue();
+                    double top = fractalTopLeft.getY().doubleValue();
+                    RenderEvents.commitBuild(event, FractalMath.FractalMethod.PERTURBATION.name(),
+                            left, top, left + imgWidth * pixelSize, top + imgHeight * pixelSize,
+                            iterations, imgWidth, imgHeight, executedIterations);
+                    return duration;
+                });
+    }
+
+    /**
+     * Builds the whole image with the perturbation method. It
+     * uses the fork join pool to do the rows, so it must be
+     * called from a task of the pool to not block other thread
+     *
+     * @return the iterations done, the ones of the pixels (also
+     * the glitches done again) and the ones of the references
+     */
+    public static long createFractalPerturbation(
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int imgWidth,
+            int imgHeight,
+            int iterations,
+            int[] fractal
+    ) {
+        MathContext mathContext = getMathContext(pixelSize);
+        BigDecimal bigPixelSize = new BigDecimal(pixelSize);
+
+        Arrays.fill(fractal, 0, imgWidth * imgHeight, PENDING);
+
+        // The first reference is the center of the screen
+        int refX = imgWidth / 2;
+        int refY = imgHeight / 2;
+
+        long executedIterations = 0;
+        for ( int reference = 0; reference < MAX_REFERENCES; reference++ ) {
+            BigDecimal refReal = fractalTopLeft.getX().add(bigPixelSize.multiply(BigDecimal.valueOf(refX)), mathContext);
+            BigDecimal refComp = fractalTopLeft.getY().add(bigPixelSize.multiply(BigDecimal.valueOf(refY)), mathContext);
+            ReferenceOrbit orbit = calculateReferenceOrbit(refReal, refComp, iterations, mathContext);
+
+            boolean isLastReference = reference == MAX_REFERENCES - 1;
+            PerturbationTask task = new PerturbationTask(
+                    0, imgHeight,
+                    refX, refY,
+                    orbit,
+                    pixelSize,
+                    iterations,
+                    fractal,
+                    imgWidth,
+                    isLastReference
+            );
+            int glitches = task.invoke();
+            executedIterations += orbit.length - 1 + task.executedIterations;
+
+            if ( glitches == 0 ) {
+                break;
+            }
+
+            // The next reference is the glitch in the middle of all the glitches
+            int glitch = findGlitch(fractal, imgWidth * imgHeight, glitches / 2);
+            refX = glitch % imgWidth;
+            refY = glitch / imgWidth;
+        }
+        return executedIterations;
+    }
+
+    /**
+     * Iterates the reference with BigDecimal until it
+     * escapes or reaches the iterations
+     */
+    private static ReferenceOrbit calculateReferenceOrbit(BigDecimal realC, BigDecimal compC, int iterations, MathContext mathContext) {
+        double[] real = new double[iterations + 1];
+        double[] comp = new double[iterations + 1];
+        double[] glitchMag2 = new double[iterations + 1];
+
+        BigDecimal realZ = BigDecimal.ZERO;
+        BigDecimal compZ = BigDecimal.ZERO;
+        BigDecimal two = BigDecimal.valueOf(2);
+
+        int n = 0;
+        while ( true ) {
+            double r = realZ.doubleValue();
+            double c = compZ.doubleValue();
+            double mod2 = r * r + c * c;
+            real[n] = r;
+            comp[n] = c;
+            glitchMag2[n] = mod2 * GLITCH_TOLERANCE;
+
+            if ( mod2 >= 4.0 || n == iterations ) {
+                break;
+            }
+
+            BigDecimal realZ2 = realZ.multiply(realZ, mathContext).subtract(compZ.multiply(compZ, mathContext), mathContext);
+            compZ = two.multiply(realZ, mathContext).multiply(compZ, mathContext).add(compC, mathContext);
+            realZ = realZ2.add(realC, mathContext);
+            n++;
+        }
+
+        return new ReferenceOrbit(real, comp, glitchMag2, n + 1);
+    }
+
+    /**
+     * @return the index of the glitch number "which"
+     */
+    private static int findGlitch(int[] fractal, int size, int which) {
+        int found = 0;
+        int last = 0;
+        for ( int i = 0; i < size; i++ ) {
+            if ( fractal[i] == PENDING ) {
+                if ( found == which ) {
+                    return i;
+                }
+                found++;
+                last = i;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Calculates the pending pixels of the rows [y0, y1) with
+     * a reference, and returns the number of glitches
+     */
+    private static class PerturbationTask extends RecursiveTask<Integer> {
+
+        private final int y0;
+
+        private final int y1;
+
+        private final int refX;
+
+        private final int refY;
+
+        private final ReferenceOrbit orbit;
+
+        private final double pixelSize;
+
+        private final int iterations;
+
+        private final int[] fractal;
+
+        private final int imgWidth;
+
+        private final boolean isLastReference;
+
+        /**
+         * The iterations done by this task and its halves,
+         * set when the task is done
+         */
+        private long executedIterations;
+
+        private PerturbationTask(
+                int y0, int y1,
+                int refX, int refY,
+                ReferenceOrbit orbit,
+                double pixelSize,
+                int iterations,
+                int[] fractal,
+                int imgWidth,
+                boolean isLastReference
+        ) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.refX = refX;
+            this.refY = refY;
+            this.orbit = orbit;
+            this.pixelSize = pixelSize;
+            this.iterations = iterations;
+            this.fractal = fractal;
+            this.imgWidth = imgWidth;
+            this.isLastReference = isLastReference;
+        }
+
+        @Override
+        protected Integer compute() {
+            if ( y1 - y0 > ROWS_PER_TASK ) {
+                int yMid = y0 + (y1 - y0) / 2;
+                PerturbationTask top = split(y0, yMid);
+                PerturbationTask bottom = split(yMid, y1);
+                top.fork();
+                int glitches = bottom.compute() + top.join();
+                executedIterations = top.executedIterations + bottom.executedIterations;
+                return glitches;
+            }
+
+            RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+            event.begin();
+            int glitches = 0;
+            for ( int y = y0; y < y1; y++ ) {
+                double deltaCompC = (y - refY) * pixelSize;
+                for ( int x = 0; x < imgWidth; x++ ) {
+                    int i = y * imgWidth + x;
+                    if ( fractal[i] != PENDING ) {
+                        continue;
+                    }
+                    int n = perturbationCal((x - refX) * pixelSize, deltaCompC);
+                    executedIterations += Math.abs(n);
+                    if ( n >= 0 ) {
+                        fractal[i] = n;
+                    } else if ( isLastReference ) {
+                        fractal[i] = -n;
+                    } else {
+                        glitches++;
+                    }
+                }
+            }
+            // The pixels are all the ones of the rows, also the ones done by the references before
+            RenderEvents.commitTask(event, "perturbation", 0, y0, imgWidth, y1, iterations, executedIterations);
+            return glitches;
+        }
+
+        /**
+         * Iterates the difference with the reference
+         *
+         * @return the iterations, or minus the iterations reached
+         * if the pixel is a glitch
+         */
+        private int perturbationCal(double deltaRealC, double deltaCompC) {
+            double[] realRef = orbit.real;
+            double[] compRef = orbit.comp;
+            double[] glitchMag2 = orbit.glitchMag2;
+            int lastRef = orbit.length - 1;
+
+            double realD = 0.0;
+            double compD = 0.0;
+
+            int n = 0;
+            while ( n < iterations ) {
+                if ( n >= lastRef ) {
+                    // The reference has escaped before this pixel
+                    return -Math.max(n, 1);
+                }
+
+                double realZ = realRef[n];
+                double compZ = compRef[n];
+
+                // d = 2 * Z * d + d * d + dc
+                double realD2 = 2 * (realZ * realD - compZ * compD) + realD * realD - compD * compD + deltaRealC;
+                compD = 2 * (realZ * compD + compZ * realD) + 2 * realD * compD + deltaCompC;
+                realD = realD2;
+                n++;
+
+                double real = realRef[n] + realD;
+                double comp = compRef[n] + compD;
+                double mod2 = real * real + comp * comp;
+                if ( mod2 >= 4.0 ) {
+                    return n;
+                }
+                if ( mod2 < glitchMag2[n] ) {
+                    return -n;
+                }
+            }
+            return n;
+        }
+
+        private PerturbationTask split(int y0, int y1) {
+            return new PerturbationTask(y0, y1, refX, refY, orbit, pixelSize, iterations, fractal, imgWidth, isLastReference);
+        }
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package sample;
+
+import points2d.Vec2dbd;
+import points2d.Vec2dd;
+import points2d.Vec2ddd;
+import sample.utils.IterationFile;
+import sample.utils.PngWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
+
+/**
+ * This class contains the static methods to export
+ * images much bigger than the screen (posters)
+ *
+ * The image is done in bands of rows. Each band is built by the
+ * fork join pool, colored and given to a PngWriter, what writes
+ * it to the file, so only two bands are in memory (the one being
+ * written and the next one, being built at the same time) and
+ * the size of the image isn't limited by the memory
+ *
+ * The iterations can be written too, in a IterationFile,
+ * to paint the poster again with other colors
+ */
+public class PosterExporter {
+
+    /**
+     * Pixels of a band, the rows of a band are this
+     * divided by the width of the image
+     */
+    private static final int BAND_PIXELS = 1 << 21;
+
+    /**
+     * The anti-aliasing looks at the neighbours of each pixel,
+     * so the bands have a row more above and below
+     */
+    private static final int ANTIALIAS_MARGIN = 1;
+
+    /**
+     * The arrays of a band
+     */
+    private static class Band {
+
+        private final int[] fractal;
+
+        private final int[] pixels;
+
+        private Band(int size) {
+            fractal = new int[size];
+            pixels = new int[size];
+        }
+
+    }
+
+    /**
+     * Exports an image to a PNG file. It is done in its own
+     * thread, called fractal-export
+     *
+     * @param fractalTopLeft the world coordinates of the pixel (0, 0)
+     * @param pixelSize the world size of a pixel
+     * @param method DOUBLE_DOUBLE or PERTURBATION for the deep
+     *               zooms, any other method is done with doubles
+     * @param antialias if the edges are anti-aliased (see
+     *                  FractalMath.createFractalAntialiased), only with doubles
+     * @param iterationFile where the iterations are written, or null
+     * @param progress called with the part of the image done (0 to 1)
+     *                 after each band, from the thread of the export
+     * @return a future completed when the file is written,
+     * the value is the time taken in nanoseconds
+     */
+    public static CompletableFuture<Long> exportPoster(
+            File file,
+            int width,
+            int height,
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int iterations,
+            FractalMath.FractalMethod method,
+            boolean antialias,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Path iterationFile,
+            DoubleConsumer progress
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.nanoTime();
+            try {
+                writePoster(file, width, height, fractalTopLeft, pixelSize, iterations, method, antialias, palette, added, way,
+                        iterationFile, progress);
+            } catch ( IOException e ) {
+                throw new UncheckedIOException(e);
+            }
+            return System.nanoTime() - startTime;
+        }, runnable -> new Thread(runnable, "fractal-export").start());
+    }
+
+    /**
+     * The body of exportPoster. While a band is written the
+     * next one is being built in the pool
+     */
+    private static void writePoster(
+            File file,
+            int width,
+            int height,
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int iterations,
+            FractalMath.FractalMethod method,
+            boolean antialias,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Path iterationFile,
+            DoubleConsumer progress
+    ) throws IOException {
+        boolean isDouble = method != FractalMath.FractalMethod.DOUBLE_DOUBLE && method != FractalMath.FractalMethod.PERTURBATION;
+        int margin = antialias && isDouble ? ANTIALIAS_MARGIN : 0;
+        int bandRows = Math.max(1, BAND_PIXELS / width);
+        Band[] bands = {
+                new Band(width * (bandRows + 2 * margin)),
+                new Band(width * (bandRows + 2 * margin))
+        };
+
+        IterationFile.Header header = new IterationFile.Header(width, height, iterations, FractalMath.getFormula(),
+                1.0 / pixelSize, fractalTopLeft.getX(), fractalTopLeft.getY());
+        try ( PngWriter writer = new PngWriter(new BufferedOutputStream(new FileOutputStream(file)), width, height);
+              IterationFile data = iterationFile != null ? IterationFile.create(iterationFile, header) : null ) {
+            CompletableFuture<Void> next = buildBand(0, bandRows, height, margin, width, fractalTopLeft, pixelSize, iterations, method,
+                    antialias && isDouble, palette, added, way, bands[0]);
+            for ( int y0 = 0, b = 0; y0 < height; y0 += bandRows, b = 1 - b ) {
+                next.join();
+                if ( y0 + bandRows < height ) {
+                    next = buildBand(y0 + bandRows, bandRows, height, margin, width, fractalTopLeft, pixelSize, iterations, method,
+                            antialias && isDouble, palette, added, way, bands[1 - b]);
+                }
+
+                // The first row of the band is the one after the margin above
+                int firstRow = Math.min(y0, margin);
+                int rows = Math.min(bandRows, height - y0);
+                for ( int y = 0; y < rows; y++ ) {
+                    writer.writeRow(bands[b].pixels, (firstRow + y) * width);
+                }
+                if ( data != null ) {
+                    data.writeRows(y0, rows, bands[b].fractal, firstRow * width);
+                }
+                progress.accept((double) (y0 + rows) / height);
+            }
+        }
+    }
+
+    /**
+     * Builds and colors the rows [y0 - margin, y0 + bandRows + margin)
+     * of the image (the ones inside it) in the band
+     *
+     * @return a future completed when the band is colored
+     */
+    private static CompletableFuture<Void> buildBand(
+            int y0,
+            int bandRows,
+            int height,
+            int margin,
+            int width,
+            Vec2dbd fractalTopLeft,
+            double pixelSize,
+            int iterations,
+            FractalMath.FractalMethod method,
+            boolean antialias,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Band band
+    ) {
+        int top = Math.max(0, y0 - margin);
+        int rows = Math.min(height, y0 + bandRows + margin) - top;
+        double bandOffset = top * pixelSize;
+
+        Vec2dd pixelsTopLeft = new Vec2dd(0.0, 0.0);
+        Vec2dd pixelsBottomRight = new Vec2dd(width, rows);
+
+        if ( method == FractalMath.FractalMethod.PERTURBATION ) {
+            Vec2dbd bandTopLeft = new Vec2dbd(fractalTopLeft);
+            bandTopLeft.addToY(bandOffset);
+            return PerturbationMath.buildFractal(bandTopLeft, pixelSize, width, rows, iterations, band.fractal)
+                    .thenRun(() -> ColorBuilder.buildColors(band.fractal, band.pixels, palette, added, way));
+        }
+        if ( method == FractalMath.FractalMethod.DOUBLE_DOUBLE ) {
+            Vec2ddd bandTopLeft = new Vec2ddd(fractalTopLeft);
+            bandTopLeft.addToY(bandOffset);
+            return DoubleDoubleMath.createFractalDoubleDouble(bandTopLeft, pixelSize, width, rows, iterations, band.fractal)
+                    .thenRun(() -> ColorBuilder.buildColors(band.fractal, band.pixels, palette, added, way));
+        }
+
+        Vec2dd fractalBandTopLeft = fractalTopLeft.toVec2dd();
+        fractalBandTopLeft.setY(fractalBandTopLeft.getY() + bandOffset);
+        Vec2dd fractalBandBottomRight = new Vec2dd(
+                fractalBandTopLeft.getX() + width * pixelSize,
+                fractalBandTopLeft.getY() + rows * pixelSize
+        );
+        if ( antialias ) {
+            return FractalMath.createFractalAntialiased(
+                    pixelsTopLeft,
+                    pixelsBottomRight,
+                    fractalBandTopLeft,
+                    fractalBandBottomRight,
+                    iterations,
+                    band.fractal,
+                    width,
+                    FractalMath.ANTIALIAS_THRESHOLD,
+                    FractalMath.ANTIALIAS_MAX_DEPTH,
+                    palette,
+                    added,
+                    way,
+                    band.pixels
+            ).thenApply(samples -> null);
+        }
+        return FractalMath.createFractalForkJoin(
+                pixelsTopLeft,
+                pixelsBottomRight,
+                fractalBandTopLeft,
+                fractalBandBottomRight,
+                iterations,
+                band.fractal,
+                width,
+                false
+        ).thenRun(() -> ColorBuilder.buildColors(band.fractal, band.pixels, palette, added, way));
+    }
+
+}
@@ -0,0 +1,137 @@
+package sample;
+
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The rows of a progressive pass to build in the fork join pool
+ *
+ * Only one pixel of each step x step block is calculated and
+ * its value fills the whole block, so a pass with step 8 is 64
+ * times faster than the full image. The pixels done by the
+ * previous (coarser) pass are at the positions multiple of
+ * previousStep, they are kept and not calculated again
+ *
+ * If the pass is cancelled the rows what haven't started
+ * are skipped, so a pass for an old view ends soon
+ */
+class ProgressiveTask extends RecursiveAction {
+
+    /**
+     * Rows of blocks for each task
+     */
+    static final int ROWS_PER_TASK = 2;
+
+    private final int row0;
+
+    private final int row1;
+
+    private final int step;
+
+    private final int previousStep;
+
+    private final double xScale;
+
+    private final double yScale;
+
+    private final double fractalLeft;
+
+    private final double fractalTop;
+
+    private final int iterations;
+
+    private final int[] fractal;
+
+    private final int imgWidth;
+
+    private final int imgHeight;
+
+    private final BooleanSupplier isCancelled;
+
+    /**
+     * @param row0 the first row of blocks (the pixel row is row0 * step)
+     * @param row1 the last row of blocks, not included
+     * @param previousStep the step of the previous pass, 0 if there isn't
+     */
+    ProgressiveTask(
+            int row0, int row1,
+            int step,
+            int previousStep,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            int imgHeight,
+            BooleanSupplier isCancelled
+    ) {
+        this.row0 = row0;
+        this.row1 = row1;
+        this.step = step;
+        this.previousStep = previousStep;
+        this.xScale = xScale;
+        this.yScale = yScale;
+        this.fractalLeft = fractalLeft;
+        this.fractalTop = fractalTop;
+        this.iterations = iterations;
+        this.fractal = fractal;
+        this.imgWidth = imgWidth;
+        this.imgHeight = imgHeight;
+        this.isCancelled = isCancelled;
+    }
+
+    @Override
+    protected void compute() {
+        if ( row1 - row0 > ROWS_PER_TASK ) {
+            int rowMid = row0 + (row1 - row0) / 2;
+            invokeAll(split(row0, rowMid), split(rowMid, row1));
+            return;
+        }
+
+        double tolerance = FractalMath.getPeriodicityTolerance(xScale);
+        RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+        event.begin();
+        long executedIterations = 0;
+        for ( int row = row0; row < row1; row++ ) {
+            if ( isCancelled.getAsBoolean() ) {
+                return;
+            }
+
+            int y = row * step;
+            int blockHeight = Math.min(step, imgHeight - y);
+            double compC = y * yScale + fractalTop;
+            boolean isPreviousRow = previousStep > 0 && y % previousStep == 0;
+
+            for ( int x = 0; x < imgWidth; x += step ) {
+                int n;
+                if ( isPreviousRow && x % previousStep == 0 ) {
+                    n = fractal[y * imgWidth + x];
+                } else {
+                    int counted = FractalMath.mathCalCounted(x * xScale + fractalLeft, compC, iterations, tolerance);
+                    n = FractalMath.getValue(counted, iterations);
+                    executedIterations += FractalMath.getIterationsDone(counted);
+                }
+
+                int blockWidth = Math.min(step, imgWidth - x);
+                for ( int by = y; by < y + blockHeight; by++ ) {
+                    int i = by * imgWidth + x;
+                    for ( int bx = 0; bx < blockWidth; bx++ ) {
+                        fractal[i + bx] = n;
+                    }
+                }
+            }
+        }
+        // The pixels are all the ones of the blocks, the
+        // iterations only the ones of the calculated pixels
+        RenderEvents.commitTask(event, "progressive", 0, row0 * step, imgWidth, Math.min(row1 * step, imgHeight),
+                iterations, executedIterations);
+    }
+
+    private ProgressiveTask split(int row0, int row1) {
+        return new ProgressiveTask(row0, row1, step, previousStep, xScale, yScale, fractalLeft, fractalTop,
+                iterations, fractal, imgWidth, imgHeight, isCancelled);
+    }
+
+}
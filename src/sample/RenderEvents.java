@@ -0,0 +1,268 @@
+package sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of the render, to see in
+ * JDK Mission Control which phase of a frame has taken the time
+ *
+ * java -XX:StartFlightRecording=filename=fractal.jfr -jar ...
+ *
+ * When there isn't a recording the events are disabled, and
+ * the values are only set when the event is going to be
+ * written (shouldCommit)
+ *
+ * The executed iterations are the ones the kernels have really
+ * done, counted by them (see FractalMath.mathCalCounted). The
+ * pixels what cost nothing (inside the main bulbs, stopped in a
+ * cycle, filled by Mariani-Silver, taken from a cached tile or
+ * resumed from an earlier frame) only add what was done for them
+ */
+public class RenderEvents {
+
+    private RenderEvents() {
+    }
+
+    /**
+     * Controller.update, what picks the view and starts the frame
+     */
+    @Name("sample.Update")
+    @Label("Update")
+    @Category({"Fractal", "Frame"})
+    @Description("The update of the view in the JavaFX thread")
+    @StackTrace(false)
+    static class UpdateEvent extends Event {
+
+        @Label("Scale")
+        @Description("Pixels of a world unit")
+        double scale;
+
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Left")
+        double left;
+
+        @Label("Top")
+        double top;
+
+        @Label("Right")
+        double right;
+
+        @Label("Bottom")
+        double bottom;
+
+        @Label("Pixels")
+        long pixels;
+
+    }
+
+    /**
+     * Controller.render, what starts the colors of a frame done
+     */
+    @Name("sample.Render")
+    @Label("Render")
+    @Category({"Fractal", "Frame"})
+    @Description("The render of the screen in the JavaFX thread")
+    @StackTrace(false)
+    static class RenderEvent extends Event {
+
+        @Label("Painting Started")
+        boolean paintingStarted;
+
+        @Label("Left")
+        @Description("The view shown, it can be an older one until its frame is done")
+        double left;
+
+        @Label("Top")
+        double top;
+
+        @Label("Right")
+        double right;
+
+        @Label("Bottom")
+        double bottom;
+
+        @Label("Pixels")
+        long pixels;
+
+    }
+
+    /**
+     * A whole frame, from the call of buildFractal until
+     * the last pixel is done
+     */
+    @Name("sample.Build")
+    @Label("Build Fractal")
+    @Category({"Fractal", "Build"})
+    @Description("A frame of the fractal, until its last pixel")
+    @StackTrace(false)
+    static class BuildEvent extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Left")
+        double left;
+
+        @Label("Top")
+        double top;
+
+        @Label("Right")
+        double right;
+
+        @Label("Bottom")
+        double bottom;
+
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Pixels")
+        long pixels;
+
+        @Label("Executed Iterations")
+        @Description("Iterations done by the kernels, without the skipped ones")
+        long executedIterations;
+
+    }
+
+    /**
+     * A piece of a frame done by a worker, the
+     * rectangle is in pixels of the image
+     */
+    @Name("sample.Task")
+    @Label("Fractal Task")
+    @Category({"Fractal", "Build"})
+    @Description("A piece of a frame done by a worker")
+    @StackTrace(false)
+    static class TaskEvent extends Event {
+
+        @Label("Kind")
+        String kind;
+
+        @Label("X0")
+        int x0;
+
+        @Label("Y0")
+        int y0;
+
+        @Label("X1")
+        int x1;
+
+        @Label("Y1")
+        int y1;
+
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Pixels")
+        long pixels;
+
+        @Label("Executed Iterations")
+        @Description("Iterations done by the kernels, without the skipped ones")
+        long executedIterations;
+
+    }
+
+    /**
+     * The colors of a frame (see ImageBuffers.paint)
+     */
+    @Name("sample.Color")
+    @Label("Color Pass")
+    @Category({"Fractal", "Paint"})
+    @Description("The colors of a frame in the back image")
+    @StackTrace(false)
+    static class ColorEvent extends Event {
+
+        @Label("Pixels")
+        long pixels;
+
+        @Label("Changed Pixels")
+        @Description("Pixels of the rectangle what has changed")
+        long changedPixels;
+
+    }
+
+    /**
+     * The swap of the images, JavaFX uploads
+     * the changed rectangle to the screen
+     */
+    @Name("sample.Upload")
+    @Label("Upload")
+    @Category({"Fractal", "Paint"})
+    @Description("The changed rectangle given to JavaFX")
+    @StackTrace(false)
+    static class UploadEvent extends Event {
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+    }
+
+    /**
+     * Writes the build event of a frame of the image size
+     */
+    static void commitBuild(
+            BuildEvent event,
+            String method,
+            double left, double top,
+            double right, double bottom,
+            int iterations,
+            int imgWidth,
+            int imgHeight,
+            long executedIterations
+    ) {
+        if ( !event.shouldCommit() ) {
+            return;
+        }
+        event.method = method;
+        event.left = left;
+        event.top = top;
+        event.right = right;
+        event.bottom = bottom;
+        event.iterations = iterations;
+        event.pixels = (long) imgWidth * imgHeight;
+        event.executedIterations = executedIterations;
+        event.commit();
+    }
+
+    /**
+     * Writes the task event of the pixels [x0, x1) x [y0, y1)
+     */
+    static void commitTask(
+            TaskEvent event,
+            String kind,
+            int x0, int y0,
+            int x1, int y1,
+            int iterations,
+            long executedIterations
+    ) {
+        if ( !event.shouldCommit() ) {
+            return;
+        }
+        event.kind = kind;
+        event.x0 = x0;
+        event.y0 = y0;
+        event.x1 = x1;
+        event.y1 = y1;
+        event.iterations = iterations;
+        event.pixels = (long) (x1 - x0) * (y1 - y0);
+        event.executedIterations = executedIterations;
+        event.commit();
+    }
+
+}
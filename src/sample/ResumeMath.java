@@ -0,0 +1,204 @@
+package sample;
+
+import points2d.Vec2dd;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class contains the static methods to do the
+ * fractal keeping the last z of each pixel
+ *
+ * When the iterations are raised, the pixels what escaped
+ * before have the same value, only the ones what reached the
+ * old limit can change. With the last z of those pixels saved,
+ * they continue from where they stopped instead of from z = 0,
+ * so raising the iterations is a small top-up instead of the
+ * whole frame again. The pixels known to never escape are saved
+ * as NaN and only take the new limit
+ */
+public class ResumeMath {
+
+    /**
+     * Rows of the image for each task of the pool
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    /**
+     * Builds the pixels inside the rectangle [x0, x1) x [y0, y1),
+     * with the same coordinates as FractalMath.createFractalSection
+     *
+     * If fromIterations is 0 all the pixels are done from z = 0,
+     * if not only the pixels what have fromIterations in the
+     * fractal array continue, from the z saved in realZs, compZs
+     *
+     * @return the iterations done, without the ones of the
+     * frames before
+     */
+    public static long createFractalSection(
+            int x0, int y0,
+            int x1, int y1,
+            double xScale,
+            double yScale,
+            double fractalLeft,
+            double fractalTop,
+            int fromIterations,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            double[] realZs,
+            double[] compZs
+    ) {
+        double tolerance = FractalMath.getPeriodicityTolerance(xScale);
+        long executedIterations = 0;
+        for ( int y = y0; y < y1; y++ ) {
+            int row = y * imgWidth;
+            double compC = y * yScale + fractalTop;
+            for ( int x = x0; x < x1; x++ ) {
+                int i = row + x;
+                if ( fromIterations == 0 || fractal[i] == fromIterations ) {
+                    int n = FractalMath.mathCalResumable(x * xScale + fractalLeft, compC, fromIterations, iterations, tolerance, realZs, compZs, i);
+                    if ( n < 0 ) {
+                        fractal[i] = iterations;
+                        executedIterations += -1 - n;
+                    } else {
+                        fractal[i] = n;
+                        executedIterations += n - fromIterations;
+                    }
+                }
+            }
+        }
+        return executedIterations;
+    }
+
+    /**
+     * The same as FractalMath.buildFractal but keeping the
+     * last z of the pixels. The rows are done in the fork join pool
+     *
+     * @param fromIterations the iterations of the frame in the
+     *                       fractal array, 0 to start from z = 0
+     * @return a future completed when the last pixel is done,
+     * the value is the time taken in nanoseconds
+     */
+    public static CompletableFuture<Long> buildFractal(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int fromIterations,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            double[] realZs,
+            double[] compZs
+    ) {
+        long startTime = System.nanoTime();
+        RenderEvents.BuildEvent event = new RenderEvents.BuildEvent();
+        event.begin();
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+
+        ResumeTask task = new ResumeTask(
+                (int) pixelsTopLeft.getY(), (int) pixelsBottomRight.getY(),
+                xScale, yScale,
+                fractalLeft, fractalTop,
+                fromIterations, iterations,
+                fractal, imgWidth,
+                realZs, compZs
+        );
+        return CompletableFuture.runAsync(task::invoke, FractalMath.getForkJoinPool())
+                .thenApply(v -> {
+                    long duration = System.nanoTime() - startTime;
+                    RenderEvents.commitBuild(event, "RESUME",
+                            fractalTopLeft.getX(), fractalTopLeft.getY(), fractalBottomRight.getX(), fractalBottomRight.getY(),
+                            iterations, imgWidth, (int) (pixelsBottomRight.getY() - pixelsTopLeft.getY()),
+                            task.executedIterations);
+                    return duration;
+                });
+    }
+
+    /**
+     * The rows [y0, y1) of the image, cut in halves until
+     * they are ROWS_PER_TASK rows
+     */
+    private static class ResumeTask extends RecursiveAction {
+
+        private final int y0;
+
+        private final int y1;
+
+        private final double xScale;
+
+        private final double yScale;
+
+        private final double fractalLeft;
+
+        private final double fractalTop;
+
+        private final int fromIterations;
+
+        private final int iterations;
+
+        private final int[] fractal;
+
+        private final int imgWidth;
+
+        private final double[] realZs;
+
+        private final double[] compZs;
+
+        /**
+         * The iterations done by this task and its halves,
+         * set when the task is done
+         */
+        private long executedIterations;
+
+        private ResumeTask(
+                int y0, int y1,
+                double xScale, double yScale,
+                double fractalLeft, double fractalTop,
+                int fromIterations, int iterations,
+                int[] fractal, int imgWidth,
+                double[] realZs, double[] compZs
+        ) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.xScale = xScale;
+            this.yScale = yScale;
+            this.fractalLeft = fractalLeft;
+            this.fractalTop = fractalTop;
+            this.fromIterations = fromIterations;
+            this.iterations = iterations;
+            this.fractal = fractal;
+            this.imgWidth = imgWidth;
+            this.realZs = realZs;
+            this.compZs = compZs;
+        }
+
+        @Override
+        protected void compute() {
+            if ( y1 - y0 <= ROWS_PER_TASK ) {
+                RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+                event.begin();
+                executedIterations = createFractalSection(0, y0, imgWidth, y1, xScale, yScale, fractalLeft, fractalTop,
+                        fromIterations, iterations, fractal, imgWidth, realZs, compZs);
+                RenderEvents.commitTask(event, "resume", 0, y0, imgWidth, y1, iterations, executedIterations);
+            } else {
+                int yMid = y0 + (y1 - y0) / 2;
+                ResumeTask top = split(y0, yMid);
+                ResumeTask bottom = split(yMid, y1);
+                invokeAll(top, bottom);
+                executedIterations = top.executedIterations + bottom.executedIterations;
+            }
+        }
+
+        private ResumeTask split(int y0, int y1) {
+            return new ResumeTask(y0, y1, xScale, yScale, fractalLeft, fractalTop,
+                    fromIterations, iterations, fractal, imgWidth, realZs, compZs);
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package sample;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A LRU cache of the tiles of the tile pyramid
+ *
+ * The cache has a budget of memory, when a new tile doesn't
+ * fit the tiles used longest ago are removed. A LinkedHashMap
+ * in access order keeps the tiles from the oldest used to
+ * the newest used, so the eldest entry is the one to remove
+ *
+ * The workers of the pool use it at the same time, so all
+ * the methods are synchronized
+ */
+public class TileCache {
+
+    /**
+     * The default budget, 256 MB
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    private final LinkedHashMap<TileKey, int[]> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long memoryBudget;
+
+    private long memoryUsed;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public TileCache() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * @param memoryBudget max bytes of the tiles in the cache
+     */
+    public TileCache(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @return the tile, or null if it isn't in the cache
+     */
+    public synchronized int[] get(TileKey key) {
+        int[] tile = tiles.get(key);
+        if ( tile != null ) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return tile;
+    }
+
+    public synchronized void put(TileKey key, int[] tile) {
+        int[] old = tiles.put(key, tile);
+        if ( old != null ) {
+            memoryUsed -= bytesOf(old);
+        }
+        memoryUsed += bytesOf(tile);
+        evict();
+    }
+
+    /**
+     * Changes the budget, if it is smaller the tiles what
+     * don't fit are removed now
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+        memoryUsed = 0;
+    }
+
+    /**
+     * Removes the tiles used longest ago until the
+     * memory used fits the budget
+     */
+    private void evict() {
+        Iterator<Map.Entry<TileKey, int[]>> iterator = tiles.entrySet().iterator();
+        while ( memoryUsed > memoryBudget && iterator.hasNext() ) {
+            Map.Entry<TileKey, int[]> eldest = iterator.next();
+            memoryUsed -= bytesOf(eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static long bytesOf(int[] tile) {
+        return 4L * tile.length;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d tiles %.1f MB, %,d hits %,d misses %,d evictions",
+                tiles.size(), memoryUsed / (1024.0 * 1024.0), hits, misses, evictions);
+    }
+
+}
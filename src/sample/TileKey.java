@@ -0,0 +1,85 @@
+package sample;
+
+/**
+ * The key of a tile of the tile pyramid (see TileMath)
+ *
+ * The tiles of the level L are squares of TileMath.getTileWorldSize(L)
+ * world units, aligned with the world origin, so the tile (tx, ty)
+ * starts at (tx, ty) * size. The iterations and the formula are in
+ * the key because the same square has different values with them
+ */
+public class TileKey {
+
+    private final int level;
+
+    private final long tx;
+
+    private final long ty;
+
+    private final int iterations;
+
+    /**
+     * The times z is square in each iteration (see FractalMath.getFormula)
+     */
+    private final int formula;
+
+    public TileKey(int level, long tx, long ty, int iterations, int formula) {
+        this.level = level;
+        this.tx = tx;
+        this.ty = ty;
+        this.iterations = iterations;
+        this.formula = formula;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getTx() {
+        return tx;
+    }
+
+    public long getTy() {
+        return ty;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getFormula() {
+        return formula;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof TileKey) ) {
+            return false;
+        }
+        TileKey tileKey = (TileKey) o;
+        return level == tileKey.level
+                && tx == tileKey.tx
+                && ty == tileKey.ty
+                && iterations == tileKey.iterations
+                && formula == tileKey.formula;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = level;
+        result = 31 * result + Long.hashCode(tx);
+        result = 31 * result + Long.hashCode(ty);
+        result = 31 * result + iterations;
+        result = 31 * result + formula;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "L" + level + " (" + tx + ", " + ty + ") " + iterations + " it";
+    }
+
+}
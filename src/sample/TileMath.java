@@ -0,0 +1,203 @@
+package sample;
+
+import points2d.Vec2dd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class contains the static methods to do the
+ * fractal with a pyramid of cached tiles
+ *
+ * The world is cut in square tiles of TILE_SIZE x TILE_SIZE
+ * pixels aligned to a power of two grid: the tiles of the level 0
+ * are LEVEL_0_SIZE world units wide and each next level halves
+ * them, as a quadtree. A frame uses the level whose pixels are
+ * the nearest in size to the pixels of the screen, takes the
+ * tiles it needs from the cache (see TileCache), calculates the
+ * missing ones and copies the nearest tile pixel to each screen
+ * pixel. Going back to a place or zooming out again doesn't
+ * calculate anything
+ *
+ * The cost: the tile pixels are between 1 / sqrt(2) and sqrt(2)
+ * times the screen ones on each axis, so the first visit of a
+ * place calculates between half and twice the pixels of the
+ * screen (plus the parts of the border tiles out of the screen),
+ * and the view can be up to sqrt(2) coarser than the other
+ * methods. Taking the finer level instead would never be coarser
+ * but it would cost up to four times the pixels, and the nearest
+ * copy would throw the extra detail away
+ */
+public class TileMath {
+
+    /**
+     * Width and height of a tile in pixels
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Width and height of a tile of the level 0 in world units
+     */
+    private static final double LEVEL_0_SIZE = 4.0;
+
+    /**
+     * Rows of the image for each task of the pool when
+     * the tiles are copied to the image
+     */
+    private static final int ROWS_PER_TASK = 16;
+
+    private static final TileCache tileCache = new TileCache();
+
+    public static TileCache getTileCache() {
+        return tileCache;
+    }
+
+    /**
+     * @return the world width of the tiles of the level
+     */
+    public static double getTileWorldSize(int level) {
+        return Math.scalb(LEVEL_0_SIZE, -level);
+    }
+
+    /**
+     * @return the level whose pixels are the nearest in size to
+     * pixelSize (in a logarithmic scale). It can be negative if
+     * the zoom is very far
+     */
+    public static int getLevel(double pixelSize) {
+        double levels = Math.log(LEVEL_0_SIZE / (TILE_SIZE * pixelSize)) / Math.log(2.0);
+        return (int) Math.round(levels);
+    }
+
+    /**
+     * Calculates a tile, the pixel (x, y) of the tile (tx, ty)
+     * is the world point ((tx * TILE_SIZE + x), (ty * TILE_SIZE + y))
+     * times the size of a pixel of the level
+     *
+     * @param tile the array of TILE_SIZE * TILE_SIZE where it is written
+     * @return the iterations done
+     */
+    public static long createTile(TileKey key, int[] tile) {
+        double tileSize = getTileWorldSize(key.getLevel());
+        double pixelSize = tileSize / TILE_SIZE;
+        return FractalMath.createFractalSection(
+                0, 0,
+                TILE_SIZE, TILE_SIZE,
+                pixelSize, pixelSize,
+                key.getTx() * tileSize,
+                key.getTy() * tileSize,
+                key.getIterations(),
+                tile,
+                TILE_SIZE
+        );
+    }
+
+    /**
+     * Builds the image from the tiles. The missing tiles are
+     * calculated in the fork join pool and put in the cache
+     *
+     * @return a future completed when the last pixel is done, the
+     * value is the iterations done (the cached tiles add nothing)
+     */
+    public static CompletableFuture<Long> createFractalTiled(
+            Vec2dd pixelsTopLeft,
+            Vec2dd pixelsBottomRight,
+            Vec2dd fractalTopLeft,
+            Vec2dd fractalBottomRight,
+            int iterations,
+            int[] fractal,
+            int imgWidth
+    ) {
+        double xScale = (fractalBottomRight.getX() - fractalTopLeft.getX()) / (pixelsBottomRight.getX() - pixelsTopLeft.getX());
+        double yScale = (fractalBottomRight.getY() - fractalTopLeft.getY()) / (pixelsBottomRight.getY() - pixelsTopLeft.getY());
+        double fractalLeft = fractalTopLeft.getX() - pixelsTopLeft.getX() * xScale;
+        double fractalTop = fractalTopLeft.getY() - pixelsTopLeft.getY() * yScale;
+        int imgHeight = (int) pixelsBottomRight.getY();
+
+        return CompletableFuture.supplyAsync(
+                () -> createFractalTiled(fractalLeft, fractalTop, xScale, yScale, iterations, fractal, imgWidth, imgHeight),
+                FractalMath.getForkJoinPool());
+    }
+
+    /**
+     * The body of the method above, it must run in the fork
+     * join pool because it waits for the tasks of the pool
+     */
+    private static long createFractalTiled(
+            double fractalLeft,
+            double fractalTop,
+            double xScale,
+            double yScale,
+            int iterations,
+            int[] fractal,
+            int imgWidth,
+            int imgHeight
+    ) {
+        int level = getLevel(Math.min(xScale, yScale));
+        double tileSize = getTileWorldSize(level);
+        double tilePixelSize = tileSize / TILE_SIZE;
+
+        long tx0 = (long) Math.floor(fractalLeft / tileSize);
+        long ty0 = (long) Math.floor(fractalTop / tileSize);
+        long tx1 = (long) Math.floor((fractalLeft + (imgWidth - 1) * xScale) / tileSize);
+        long ty1 = (long) Math.floor((fractalTop + (imgHeight - 1) * yScale) / tileSize);
+        int columns = (int) (tx1 - tx0 + 1);
+        int rows = (int) (ty1 - ty0 + 1);
+
+        int[][] tiles = new int[columns * rows][];
+        List<ForkJoinTask<?>> missing = new ArrayList<>();
+        LongAdder executedIterations = new LongAdder();
+        for ( int row = 0; row < rows; row++ ) {
+            for ( int column = 0; column < columns; column++ ) {
+                TileKey key = new TileKey(level, tx0 + column, ty0 + row, iterations, FractalMath.getFormula());
+                int index = row * columns + column;
+                tiles[index] = tileCache.get(key);
+                if ( tiles[index] == null ) {
+                    missing.add(ForkJoinTask.adapt(() -> {
+                        RenderEvents.TaskEvent event = new RenderEvents.TaskEvent();
+                        event.begin();
+                        int[] tile = new int[TILE_SIZE * TILE_SIZE];
+                        long tileIterations = createTile(key, tile);
+                        executedIterations.add(tileIterations);
+                        RenderEvents.commitTask(event, "tile", 0, 0, TILE_SIZE, TILE_SIZE, iterations, tileIterations);
+                        tileCache.put(key, tile);
+                        tiles[index] = tile;
+                    }));
+                }
+            }
+        }
+        ForkJoinTask.invokeAll(missing);
+
+        // The nearest tile pixel at or before the screen pixel
+        int[] tileX = new int[imgWidth];
+        for ( int x = 0; x < imgWidth; x++ ) {
+            long gx = (long) Math.floor((fractalLeft + x * xScale) / tilePixelSize) - tx0 * TILE_SIZE;
+            tileX[x] = (int) Math.max(0, Math.min(gx, (long) columns * TILE_SIZE - 1));
+        }
+
+        List<ForkJoinTask<?>> bands = new ArrayList<>();
+        for ( int band = 0; band < imgHeight; band += ROWS_PER_TASK ) {
+            int y0 = band;
+            int y1 = Math.min(band + ROWS_PER_TASK, imgHeight);
+            bands.add(ForkJoinTask.adapt(() -> {
+                for ( int y = y0; y < y1; y++ ) {
+                    long gy = (long) Math.floor((fractalTop + y * yScale) / tilePixelSize) - ty0 * TILE_SIZE;
+                    int ty = (int) Math.max(0, Math.min(gy, (long) rows * TILE_SIZE - 1));
+                    int tileRow = (ty / TILE_SIZE) * columns;
+                    int pixelRow = (ty % TILE_SIZE) * TILE_SIZE;
+                    int row = y * imgWidth;
+                    for ( int x = 0; x < imgWidth; x++ ) {
+                        int tx = tileX[x];
+                        fractal[row + x] = tiles[tileRow + tx / TILE_SIZE][pixelRow + tx % TILE_SIZE];
+                    }
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(bands);
+        return executedIterations.sum();
+    }
+
+}
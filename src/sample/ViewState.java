@@ -0,0 +1,88 @@
+package sample;
+
+import points2d.Vec2dbd;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * What is needed to know if two frames are the same
+ * fractal: the position, the zoom, the iterations and
+ * the method. It is immutable, so it can be kept to
+ * remember for which view the fractal array was built
+ */
+public class ViewState {
+
+    private final BigDecimal offsetX;
+
+    private final BigDecimal offsetY;
+
+    private final double scale;
+
+    private final int iterations;
+
+    private final FractalMath.FractalMethod method;
+
+    public ViewState(Vec2dbd offset, double scale, int iterations, FractalMath.FractalMethod method) {
+        // BigDecimal is immutable, so the values can be shared
+        this.offsetX = offset.getX();
+        this.offsetY = offset.getY();
+        this.scale = scale;
+        this.iterations = iterations;
+        this.method = method;
+    }
+
+    public BigDecimal getOffsetX() {
+        return offsetX;
+    }
+
+    public BigDecimal getOffsetY() {
+        return offsetY;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public FractalMath.FractalMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return true if both views are the same but maybe
+     * with different iterations
+     */
+    public boolean isSamePlace(ViewState viewState) {
+        return viewState != null
+                && scale == viewState.scale
+                && method == viewState.method
+                && offsetX.compareTo(viewState.offsetX) == 0
+                && offsetY.compareTo(viewState.offsetY) == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof ViewState) ) {
+            return false;
+        }
+        ViewState viewState = (ViewState) o;
+        return scale == viewState.scale
+                && iterations == viewState.iterations
+                && method == viewState.method
+                && offsetX.compareTo(viewState.offsetX) == 0
+                && offsetY.compareTo(viewState.offsetY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offsetX.stripTrailingZeros(), offsetY.stripTrailingZeros(), scale, iterations, method);
+    }
+
+}
@@ -0,0 +1,361 @@
+package sample;
+
+import points2d.Vec2dbd;
+import points2d.Vec2dd;
+import sample.utils.IterationFile;
+import sample.utils.PngWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class renders the frames of a zoom animation
+ * between two views to numbered PNG files
+ *
+ * Each frame is built with all the cores (FractalMath.buildFractal)
+ * and colored, and then given to the writers, what compress and
+ * write it while the next frames are being built. There is a fixed
+ * number of color buffers, when all of them are waiting to be
+ * written the renderer waits, so the memory is bounded
+ *
+ * The frames can also be built from an exponential map, what
+ * is calculated only once (see ExpMapMath)
+ *
+ * The files are written with a temporary name and renamed when
+ * they are complete, so the frames what already exist are skipped
+ * and a sequence what was stopped can be resumed
+ */
+public class ZoomAnimator {
+
+    /**
+     * Frames what can be waiting to be written
+     */
+    private static final int WRITER_QUEUE = 4;
+
+    /**
+     * Threads what write the frames
+     */
+    private static final int WRITER_THREADS = 2;
+
+    /**
+     * How the animation goes from the start to the end
+     */
+    enum Easing {
+        /**
+         * The same zoom in each frame
+         */
+        LINEAR,
+        /**
+         * Starts and ends slowly (smoothstep)
+         */
+        SMOOTH
+    }
+
+    interface Progress {
+        void update(int framesDone, int frames, double framesPerSecond);
+    }
+
+    /**
+     * @return the part of the animation at the time t (0 to 1)
+     */
+    static double ease(Easing easing, double t) {
+        switch ( easing ) {
+            case SMOOTH:
+                return t * t * (3 - 2 * t);
+            case LINEAR: default:
+                return t;
+        }
+    }
+
+    /**
+     * @return the name of the file of the frame
+     */
+    static String getFrameName(String name, int frame) {
+        return String.format("%s_%05d.png", name, frame);
+    }
+
+    /**
+     * Renders the animation in its own thread, called
+     * fractal-animation
+     *
+     * The scale goes from the start to the end as a geometric
+     * progression, so a linear animation has the same zoom in
+     * each frame. The center moves as the width of the view, so
+     * it arrives to the end center at the same time as the zoom
+     *
+     * @param startCenter the world point in the center of the first frame
+     * @param startScale the pixels of a world unit of the first frame
+     * @param mode the method chosen, the deep frames are done
+     *             with the method of FractalMath.getPrecisionMethod
+     *             and the rest with all the cores (see getAnimationMethod)
+     * @param progress called after each frame, from a writer thread
+     * @return a future completed when the last frame is written,
+     * the value is the number of frames done (without the skipped ones)
+     */
+    public static CompletableFuture<Integer> renderAnimation(
+            Path directory,
+            String name,
+            int frames,
+            int width,
+            int height,
+            Vec2dbd startCenter,
+            double startScale,
+            Vec2dbd endCenter,
+            double endScale,
+            Easing easing,
+            FractalMath.FractalMethod mode,
+            int iterations,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Progress progress
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return render(directory, name, frames, width, height, startCenter, startScale, endCenter, endScale,
+                        easing, mode, iterations, palette, added, way, progress);
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The animation has been interrupted", e);
+            }
+        }, runnable -> new Thread(runnable, "fractal-animation").start());
+    }
+
+    /**
+     * Renders the animation from an exponential map (see ExpMapMath)
+     * in its own thread, called fractal-animation. The center is the
+     * center of the map and each frame only reads the rows of the map
+     * what it needs, so it is much faster than renderAnimation
+     *
+     * @param startScale the pixels of a world unit of the first frame,
+     *                   it can't be less than the scale of the map
+     * @return a future completed when the last frame is written,
+     * the value is the number of frames done (without the skipped ones)
+     */
+    public static CompletableFuture<Integer> renderAnimationFromMap(
+            Path directory,
+            String name,
+            int frames,
+            int width,
+            int height,
+            Path mapFile,
+            double startScale,
+            double endScale,
+            Easing easing,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Progress progress
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            try ( IterationFile map = IterationFile.open(mapFile) ) {
+                IterationFile.Header header = map.getHeader();
+                if ( header.getProjection() != IterationFile.Projection.EXPONENTIAL_MAP ) {
+                    throw new IllegalArgumentException("The file is not an exponential map");
+                }
+                ExpMapMath.FrameGeometry geometry = new ExpMapMath.FrameGeometry(width, height, header.getWidth());
+                // The rows of a frame are the same number for all the frames
+                int[] rowsNeeded = ExpMapMath.getFrameRows(header, geometry, startScale);
+                int[] mapRows = new int[(rowsNeeded[1] + 2) * header.getWidth()];
+
+                return writeFrames(directory, name, frames, width, height, (frame, pixels) -> {
+                    double scale = getScale(startScale, endScale, easing, frame, frames);
+                    int[] rows = ExpMapMath.getFrameRows(header, geometry, scale);
+                    int rowCount = Math.min(rows[1], mapRows.length / header.getWidth());
+                    map.readRows(rows[0], rowCount, mapRows, 0);
+                    ExpMapMath.resampleFrame(header, geometry, scale, mapRows, rows[0], rowCount, palette, added, way, pixels);
+                }, progress);
+            } catch ( IOException e ) {
+                throw new UncheckedIOException(e);
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The animation has been interrupted", e);
+            }
+        }, runnable -> new Thread(runnable, "fractal-animation").start());
+    }
+
+    /**
+     * The body of renderAnimation
+     */
+    private static int render(
+            Path directory,
+            String name,
+            int frames,
+            int width,
+            int height,
+            Vec2dbd startCenter,
+            double startScale,
+            Vec2dbd endCenter,
+            double endScale,
+            Easing easing,
+            FractalMath.FractalMethod mode,
+            int iterations,
+            int[] palette,
+            float added,
+            ColorBuilder.WayToRender way,
+            Progress progress
+    ) throws InterruptedException {
+        int[] fractal = new int[width * height];
+
+        // The center moves as the size of a pixel (1 / scale)
+        double startSize = 1.0 / startScale;
+        double endSize = 1.0 / endScale;
+
+        return writeFrames(directory, name, frames, width, height, (frame, pixels) -> {
+            double t = frames == 1 ? 1.0 : ease(easing, (double) frame / (frames - 1));
+            double pixelSize = 1.0 / getScale(startScale, endScale, easing, frame, frames);
+            double u = startSize == endSize ? t : (pixelSize - startSize) / (endSize - startSize);
+
+            Vec2dbd topLeft = new Vec2dbd(
+                    interpolate(startCenter.getX(), endCenter.getX(), u),
+                    interpolate(startCenter.getY(), endCenter.getY(), u)
+            );
+            topLeft.addToX(-width / 2.0 * pixelSize);
+            topLeft.addToY(-height / 2.0 * pixelSize);
+
+            Vec2dd fractalTopLeft = topLeft.toVec2dd();
+            Vec2dd fractalBottomRight = new Vec2dd(
+                    fractalTopLeft.getX() + width * pixelSize,
+                    fractalTopLeft.getY() + height * pixelSize
+            );
+            FractalMath.FractalMethod method = FractalMath.getPrecisionMethod(getAnimationMethod(mode), fractalTopLeft, fractalBottomRight, pixelSize);
+            FractalMath.buildFractal(topLeft, pixelSize, width, height, iterations, fractal, method).join();
+            ColorBuilder.buildColors(fractal, pixels, palette, added, way);
+        }, progress);
+    }
+
+    /**
+     * @return the method for the frames: the ones of only one
+     * thread are changed to their fork join version, and the
+     * tiles to fork join too, the frames of a zoom don't share
+     * tiles and they would only fill the cache
+     */
+    static FractalMath.FractalMethod getAnimationMethod(FractalMath.FractalMethod mode) {
+        switch ( mode ) {
+            case LANES:
+                return FractalMath.FractalMethod.LANES_FORK_JOIN;
+            case NAIVE:
+            case TILED:
+                return FractalMath.FractalMethod.FORK_JOIN;
+            default:
+                return mode;
+        }
+    }
+
+    /**
+     * The scale goes from the start to the end as a geometric
+     * progression, so a linear animation has the same zoom in
+     * each frame
+     */
+    private static double getScale(double startScale, double endScale, Easing easing, int frame, int frames) {
+        double t = frames == 1 ? 1.0 : ease(easing, (double) frame / (frames - 1));
+        return startScale * Math.pow(endScale / startScale, t);
+    }
+
+    /**
+     * Builds the colors of a frame
+     */
+    private interface FrameBuilder {
+        void build(int frame, int[] pixels) throws IOException;
+    }
+
+    /**
+     * Builds the frames what don't exist yet in this thread and
+     * gives them to the writers. Waits for a free buffer when
+     * the writers are behind
+     *
+     * @return the number of frames done
+     */
+    private static int writeFrames(
+            Path directory,
+            String name,
+            int frames,
+            int width,
+            int height,
+            FrameBuilder builder,
+            Progress progress
+    ) throws InterruptedException {
+        BlockingQueue<int[]> freeBuffers = new ArrayBlockingQueue<>(WRITER_QUEUE);
+        for ( int i = 0; i < WRITER_QUEUE; i++ ) {
+            freeBuffers.add(new int[width * height]);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS, runnable ->
+                new Thread(runnable, "fractal-writer-" + threadCount.getAndIncrement()));
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        AtomicInteger framesDone = new AtomicInteger();
+        long startTime = System.nanoTime();
+
+        try {
+            for ( int frame = 0; frame < frames; frame++ ) {
+                Path file = directory.resolve(getFrameName(name, frame));
+                if ( Files.exists(file) ) {
+                    continue;
+                }
+
+                int[] pixels = freeBuffers.take();
+                try {
+                    builder.build(frame, pixels);
+                } catch ( IOException e ) {
+                    freeBuffers.add(pixels);
+                    throw new UncheckedIOException(e);
+                }
+
+                writes.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        writeFrame(file, pixels, width, height);
+                    } catch ( IOException e ) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        freeBuffers.add(pixels);
+                    }
+                    int done = framesDone.incrementAndGet();
+                    double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+                    progress.update(done, frames, done / seconds);
+                }, writers));
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            writers.shutdown();
+        }
+        return framesDone.get();
+    }
+
+    /**
+     * @return a + (b - a) * u, with all the digits
+     */
+    private static BigDecimal interpolate(BigDecimal a, BigDecimal b, double u) {
+        return a.add(b.subtract(a).multiply(new BigDecimal(u)));
+    }
+
+    /**
+     * Writes the frame to a temporary file and renames
+     * it, so the file only exists when it is complete
+     */
+    private static void writeFrame(Path file, int[] pixels, int width, int height) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try ( OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary));
+              PngWriter writer = new PngWriter(out, width, height) ) {
+            for ( int y = 0; y < height; y++ ) {
+                writer.writeRow(pixels, y * width);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -6,6 +6,8 @@ import javafx.scene.image.WritableImage;
 import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * This class contains the methods to save
@@ -13,6 +15,11 @@ import java.io.IOException;
  */
 public class IOUtils {
 
+    /**
+     * The extension of the files of iterations
+     */
+    public static final String ITERATIONS_EXTENSION = ".frct";
+
     public static void saveImage(String directory, String name, WritableImage img) {
         String fileName = directory + "\\" + name + ".png";
         File file = new File(fileName);
@@ -24,6 +31,24 @@ public class IOUtils {
         MessageUtils.showMessage("Imagen guardada", "Se ha guardado la imagen en el directorio: " + fileName);
     }
 
+    /**
+     * Saves the iterations of the fractal (see IterationFile)
+     */
+    public static void saveIterations(String directory, String name, IterationFile.Header header, int[] fractal) {
+        if ( directory.equals("") || name.equals("") ) {
+            MessageUtils.showError("Directorio y nombre nulos", "Introduce donde y como se va a guardar la imagen.");
+            return;
+        }
+        Path path = Paths.get(directory, name + ITERATIONS_EXTENSION);
+        try ( IterationFile file = IterationFile.create(path, header) ) {
+            file.writeRows(0, header.getHeight(), fractal, 0);
+        } catch ( IOException e ) {
+            MessageUtils.showError("Ha ocurrido algún error al intentar guardar las iteraciones", "Error: " + e.getMessage());
+            return;
+        }
+        MessageUtils.showMessage("Iteraciones guardadas", "Se han guardado las iteraciones en: " + path);
+    }
+
     public static void saveImage(WritableImage img, String directory, String name) {
         if (!directory.equals("") && !name.equals("")) {
             saveImage(directory, name, img);
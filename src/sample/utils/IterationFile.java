@@ -0,0 +1,320 @@
+package sample.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads and writes the iterations of a fractal
+ * in a binary file, so it can be opened and painted with
+ * other colors without calculating it again
+ *
+ * The file is a header and the data:
+ *
+ * magic "FRCT", version, width, height, iterations, formula,
+ * projection, scale, offset of the data, and the offsets x and y
+ * of the view as text (to keep all the digits of the deep zooms).
+ * The version 1 has no projection, it is always FLAT
+ *
+ * the data is an int per pixel, row after row, from the
+ * offset written in the header (big endian as all the file)
+ *
+ * The data is read and written in windows of the file, never
+ * the whole file at once, so the files can be bigger than the
+ * memory. The windows aren't mapped (FileChannel.map): a mapped
+ * buffer can't be unmapped until the garbage collector frees
+ * it, and in Windows the file can't be replaced while it is
+ * mapped, so they are copied with FileChannel.read and write
+ */
+public class IterationFile implements Closeable {
+
+    private static final int MAGIC = 0x46524354;
+
+    private static final int VERSION = 2;
+
+    /**
+     * Bytes of the header before the offsets: six ints (seven
+     * since the version 2), the scale and the offset of the data
+     */
+    private static final int FIXED_HEADER_SIZE_V1 = 4 * 6 + 8 + 8;
+
+    private static final int FIXED_HEADER_SIZE = FIXED_HEADER_SIZE_V1 + 4;
+
+    /**
+     * What the pixels of the data are
+     */
+    public enum Projection {
+        /**
+         * A view of the screen: the pixel (x, y) is the world
+         * point offset + (x, y) / scale
+         */
+        FLAT,
+        /**
+         * An exponential map (see ExpMapMath): the x is the angle
+         * and the y the logarithm of the distance to the center,
+         * which is the offset. The row 0 is at 1 / scale
+         */
+        EXPONENTIAL_MAP
+    }
+
+    /**
+     * The data starts in a multiple of this
+     */
+    private static final int DATA_ALIGNMENT = 64;
+
+    /**
+     * Max bytes of a window of the file in memory
+     */
+    private static final int MAX_WINDOW = 4 * 1024 * 1024;
+
+    /**
+     * The header of the file, what is needed to know
+     * which view of the fractal the data is
+     */
+    public static class Header {
+
+        private final int width;
+
+        private final int height;
+
+        private final int iterations;
+
+        private final int formula;
+
+        private final Projection projection;
+
+        private final double scale;
+
+        private final BigDecimal offsetX;
+
+        private final BigDecimal offsetY;
+
+        /**
+         * A header of a FLAT file
+         * @param scale the pixels of a world unit
+         * @param offsetX the world x of the pixel (0, 0)
+         * @param offsetY the world y of the pixel (0, 0)
+         */
+        public Header(int width, int height, int iterations, int formula, double scale, BigDecimal offsetX, BigDecimal offsetY) {
+            this(width, height, iterations, formula, Projection.FLAT, scale, offsetX, offsetY);
+        }
+
+        public Header(int width, int height, int iterations, int formula, Projection projection, double scale, BigDecimal offsetX, BigDecimal offsetY) {
+            this.width = width;
+            this.height = height;
+            this.iterations = iterations;
+            this.formula = formula;
+            this.projection = projection;
+            this.scale = scale;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public int getFormula() {
+            return formula;
+        }
+
+        public Projection getProjection() {
+            return projection;
+        }
+
+        public double getScale() {
+            return scale;
+        }
+
+        public BigDecimal getOffsetX() {
+            return offsetX;
+        }
+
+        public BigDecimal getOffsetY() {
+            return offsetY;
+        }
+
+    }
+
+    private final FileChannel channel;
+
+    private final Header header;
+
+    private final long dataOffset;
+
+    private IterationFile(FileChannel channel, Header header, long dataOffset) {
+        this.channel = channel;
+        this.header = header;
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Creates the file (or replaces it) with the header
+     * and space for all the data
+     */
+    public static IterationFile create(Path path, Header header) throws IOException {
+        byte[] offsetX = header.getOffsetX().toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] offsetY = header.getOffsetY().toString().getBytes(StandardCharsets.US_ASCII);
+        int headerSize = FIXED_HEADER_SIZE + 4 + offsetX.length + 4 + offsetY.length;
+        long dataOffset = (headerSize + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(header.getWidth());
+        buffer.putInt(header.getHeight());
+        buffer.putInt(header.getIterations());
+        buffer.putInt(header.getFormula());
+        buffer.putInt(header.getProjection().ordinal());
+        buffer.putDouble(header.getScale());
+        buffer.putLong(dataOffset);
+        buffer.putInt(offsetX.length);
+        buffer.put(offsetX);
+        buffer.putInt(offsetY.length);
+        buffer.put(offsetY);
+        buffer.flip();
+
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            while ( buffer.hasRemaining() ) {
+                channel.write(buffer);
+            }
+            // The size of the file is set writing its last byte
+            long size = dataOffset + 4L * header.getWidth() * header.getHeight();
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        } catch ( IOException e ) {
+            channel.close();
+            throw e;
+        }
+        return new IterationFile(channel, header, dataOffset);
+    }
+
+    /**
+     * Opens a file to read it
+     */
+    public static IterationFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            readFully(channel, buffer, 0);
+            if ( buffer.getInt() != MAGIC ) {
+                throw new IOException("It isn't a file of iterations");
+            }
+            int version = buffer.getInt();
+            if ( version < 1 || version > VERSION ) {
+                throw new IOException("Unknown version of the file: " + version);
+            }
+
+            buffer = ByteBuffer.allocate(version == 1 ? FIXED_HEADER_SIZE_V1 : FIXED_HEADER_SIZE);
+            readFully(channel, buffer, 0);
+            buffer.position(8);
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int iterations = buffer.getInt();
+            int formula = buffer.getInt();
+            Projection projection = version == 1 ? Projection.FLAT : Projection.values()[buffer.getInt()];
+            double scale = buffer.getDouble();
+            long dataOffset = buffer.getLong();
+            long position = buffer.capacity();
+
+            BigDecimal[] offsets = new BigDecimal[2];
+            for ( int i = 0; i < offsets.length; i++ ) {
+                buffer = ByteBuffer.allocate(4);
+                readFully(channel, buffer, position);
+                int length = buffer.getInt();
+                buffer = ByteBuffer.allocate(length);
+                readFully(channel, buffer, position + 4);
+                offsets[i] = new BigDecimal(new String(buffer.array(), StandardCharsets.US_ASCII));
+                position += 4 + length;
+            }
+
+            if ( channel.size() < dataOffset + 4L * width * height ) {
+                throw new IOException("The file is incomplete");
+            }
+            Header header = new Header(width, height, iterations, formula, projection, scale, offsets[0], offsets[1]);
+            return new IterationFile(channel, header, dataOffset);
+        } catch ( IOException | RuntimeException e ) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("The header is damaged", e);
+        }
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    /**
+     * Writes the rows [y0, y0 + rows) from the array
+     * @param offset the index of the pixel (0, y0) in the array
+     */
+    public void writeRows(int y0, int rows, int[] data, int offset) throws IOException {
+        copyRows(y0, rows, data, offset, true);
+    }
+
+    /**
+     * Reads the rows [y0, y0 + rows) into the array
+     * @param offset the index of the pixel (0, y0) in the array
+     */
+    public void readRows(int y0, int rows, int[] data, int offset) throws IOException {
+        copyRows(y0, rows, data, offset, false);
+    }
+
+    /**
+     * Copies the rows to or from the array in windows
+     * of MAX_WINDOW bytes at most
+     */
+    private void copyRows(int y0, int rows, int[] data, int offset, boolean isWrite) throws IOException {
+        if ( y0 < 0 || rows < 0 || y0 + rows > header.getHeight() ) {
+            throw new IndexOutOfBoundsException("Rows [" + y0 + ", " + (y0 + rows) + ") of " + header.getHeight());
+        }
+        long position = dataOffset + 4L * y0 * header.getWidth();
+        long remaining = (long) rows * header.getWidth();
+        ByteBuffer window = ByteBuffer.allocate((int) Math.min(4 * remaining, MAX_WINDOW));
+        while ( remaining > 0 ) {
+            int ints = (int) Math.min(remaining, MAX_WINDOW / 4);
+            window.clear().limit(4 * ints);
+            if ( isWrite ) {
+                window.asIntBuffer().put(data, offset, ints);
+                while ( window.hasRemaining() ) {
+                    channel.write(window, position + window.position());
+                }
+            } else {
+                readFully(channel, window, position);
+                window.asIntBuffer().get(data, offset, ints);
+            }
+            position += 4L * ints;
+            offset += ints;
+            remaining -= ints;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while ( buffer.hasRemaining() ) {
+            if ( channel.read(buffer, position + buffer.position()) < 0 ) {
+                throw new IOException("The file is incomplete");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
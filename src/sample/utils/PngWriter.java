@@ -0,0 +1,150 @@
+package sample.utils;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class writes a PNG image row by row
+ *
+ * ImageIO needs the whole image in memory, this one only
+ * needs a row: each row is filtered, compressed and written
+ * as soon as it is given, so the images can be bigger than
+ * the memory. The image is RGB, 8 bits per channel, and the
+ * alpha of the colors is ignored
+ *
+ * https://www.w3.org/TR/PNG/
+ */
+public class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /**
+     * Bytes of compressed data for each IDAT chunk
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The Sub filter: each byte minus the same byte of the
+     * pixel at its left. The colors change slowly, so it
+     * compresses much better than the raw bytes
+     */
+    private static final byte FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+
+    private final int width;
+
+    private final int height;
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * One row: the filter byte and three bytes per pixel
+     */
+    private final byte[] row;
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private int rowsWritten = 0;
+
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + 3 * width];
+
+        this.out.write(SIGNATURE);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;      // bits per channel
+        header[9] = 2;      // RGB
+        header[10] = 0;     // deflate
+        header[11] = 0;     // filters of the standard
+        header[12] = 0;     // not interlaced
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Writes the next row of the image
+     * @param pixels the colors (ARGB) of the row from offset
+     */
+    public void writeRow(int[] pixels, int offset) throws IOException {
+        if ( rowsWritten == height ) {
+            throw new IOException("The image has only " + height + " rows");
+        }
+
+        row[0] = FILTER_SUB;
+        int left = 0;
+        for ( int x = 0; x < width; x++ ) {
+            int color = pixels[offset + x];
+            int i = 1 + 3 * x;
+            row[i] = (byte) ((color >> 16) - (left >> 16));
+            row[i + 1] = (byte) ((color >> 8) - (left >> 8));
+            row[i + 2] = (byte) (color - left);
+            left = color;
+        }
+
+        deflater.setInput(row);
+        while ( !deflater.needsInput() ) {
+            deflate();
+        }
+        rowsWritten++;
+    }
+
+    /**
+     * Writes the end of the image. All the rows must be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if ( rowsWritten != height ) {
+                throw new IOException("Only " + rowsWritten + " of " + height + " rows have been written");
+            }
+            deflater.finish();
+            while ( !deflater.finished() ) {
+                deflate();
+            }
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Compresses what it can and writes it in an IDAT chunk
+     */
+    private void deflate() throws IOException {
+        int length = deflater.deflate(chunk);
+        if ( length > 0 ) {
+            writeChunk("IDAT", chunk, length);
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+}